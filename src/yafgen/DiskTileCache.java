@@ -0,0 +1,388 @@
+/*
+ * DiskTileCache.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * DiskTileCache keeps the iteration counts of rendered tiles in a directory on the local disk,
+ * so that the views of an earlier session do not have to be calculated again. It uses the same
+ * keys as TileCache.
+ *
+ * The counts are stored in the data file, which is split into slots of the same size; every slot
+ * holds one tile. The file is accessed through memory mapped segments of SLOTS_PER_SEGMENT slots.
+ * The index file lists the key and the slot of every tile, the least recently used first; it is
+ * read when the cache is opened, and written again by flush(). When all slots are used, the
+ * least recently used tile gives its slot to the new one, so the data file never grows beyond
+ * the size cap.
+ *
+ * Every slot holds the whole key of its tile and a checksum of key and counts, so a slot that was
+ * given to another tile, or that was only half written when a session was killed, is not taken for
+ * the tile. The cache locks the data file while it is open; a second process (e.g. YaFGenBatch while
+ * the window is open) cannot open the same directory, and renders without the disk cache.
+ */
+public class DiskTileCache {
+    
+    private static final String DATA_FILE = "tiles.dat";
+    private static final String INDEX_FILE = "tiles.idx";
+    
+    /** the first int of the index file, and its version */
+    private static final int MAGIC = 0x59614647;
+    private static final int VERSION = 2;
+    
+    /** slots that are mapped together */
+    private static final int SLOTS_PER_SEGMENT = 64;
+    
+    /** the longest key (in UTF-8 bytes) of a tile on the disk; tiles with longer keys are not stored */
+    private static final int MAX_KEY_BYTES = 1024;
+    
+    /**
+     * every slot starts with the length of the key, the number of counts and the checksum of both,
+     * followed by the key itself; they are checked when the slot is read
+     */
+    private static final int SLOT_HEADER = 12 + MAX_KEY_BYTES;
+    
+    private final File directory;
+    private final int slotBytes;
+    private final int maxSlots;
+    
+    private RandomAccessFile dataFile;
+    private FileChannel channel;
+    private FileLock lock;
+    private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+    
+    /** the slot of every tile, in the order of the last use, the eldest first */
+    private final LinkedHashMap<String, Integer> index = new LinkedHashMap<String, Integer>(16, 0.75F, true);
+    /** slots that are in the data file, but not used by a tile */
+    private final List<Integer> freeSlots = new ArrayList<Integer>();
+    private int usedSlots = 0;
+    private boolean indexChanged = false;
+    
+    /**
+     * Creates a new instance of DiskTileCache in the directory, for tiles of at most maxTileLength
+     * iteration counts; the data file takes at most budget bytes
+     */
+    public DiskTileCache(File directory, int maxTileLength, long budget) throws IOException {
+        this.directory = directory;
+        slotBytes = SLOT_HEADER + 4 * maxTileLength;
+        maxSlots = (int)Math.min(budget / slotBytes, Integer.MAX_VALUE);
+        
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("cannot create the directory " + directory);
+        }
+        
+        // the lock is taken before the index is read, so that no other process writes the cache in the meantime
+        dataFile = new RandomAccessFile(new File(directory, DATA_FILE), "rw");
+        channel = dataFile.getChannel();
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException oFLE) {
+            // another cache of this process has the directory open
+            lock = null;
+        }
+        if (lock == null) {
+            dataFile.close();
+            throw new IOException(directory + " is used by another disk cache");
+        }
+        
+        readIndex();
+        
+        // a smaller cap than in the last session: the slots behind the cap are given up
+        try {
+            if (dataFile.length() > (long)usedSlots * slotBytes) {
+                dataFile.setLength((long)usedSlots * slotBytes);
+            }
+        } catch (IOException iE) {
+            dataFile.close();
+            throw iE;
+        }
+    }
+    
+    /** the default directory of the disk cache, in the home directory of the user */
+    public static File defaultDirectory() {
+        return new File(new File(System.getProperty("user.home"), ".yafgen"), "tiles");
+    }
+    
+    /** the iteration counts of the tile, or null if it is not on the disk */
+    public synchronized int[] get(String key) {
+        Integer slot = index.get(key);
+        if (slot == null) {
+            return null;
+        }
+        
+        try {
+            MappedByteBuffer segment = segment(slot);
+            int offset = (slot % SLOTS_PER_SEGMENT) * slotBytes;
+            byte[] keyBytes = key.getBytes("UTF-8");
+            int keyLength = segment.getInt(offset);
+            int length = segment.getInt(offset + 4);
+            byte[] slotKey = null, counts = null;
+            if (keyLength == keyBytes.length && length >= 0 && SLOT_HEADER + 4L * length <= slotBytes) {
+                slotKey = new byte[keyLength];
+                counts = new byte[4 * length];
+                ByteBuffer slotBuffer = segment.duplicate();
+                slotBuffer.position(offset + 12);
+                slotBuffer.get(slotKey);
+                slotBuffer.position(offset + SLOT_HEADER);
+                slotBuffer.get(counts);
+            }
+            if (slotKey == null || !Arrays.equals(slotKey, keyBytes) || segment.getInt(offset + 8) != checksum(keyBytes, counts)) {
+                // the slot was written, but the index was not, or only half of it (e.g. the last session was killed)
+                System.out.println("DiskTileCache: slot " + slot + " does not hold the tile " + key);
+                remove(key);
+                return null;
+            }
+            
+            int[] tile = new int[length];
+            ByteBuffer.wrap(counts).asIntBuffer().get(tile);
+            return tile;
+        } catch (IOException iE) {
+            iE.printStackTrace();
+            return null;
+        }
+    }
+    
+    /** store the iteration counts of a tile; a tile that is already on the disk is not written again */
+    public synchronized void put(String key, int[] tile) {
+        if (channel == null || maxSlots == 0 || index.containsKey(key) || SLOT_HEADER + 4 * tile.length > slotBytes) {
+            return;
+        }
+        byte[] keyBytes;
+        try {
+            keyBytes = key.getBytes("UTF-8");
+        } catch (IOException iE) {
+            return;
+        }
+        if (keyBytes.length > MAX_KEY_BYTES) {
+            return;
+        }
+        
+        int slot;
+        if (!freeSlots.isEmpty()) {
+            slot = freeSlots.remove(freeSlots.size() - 1);
+        } else if (usedSlots < maxSlots) {
+            slot = usedSlots++;
+        } else {
+            // the cap is reached: take the slot of the least recently used tile
+            Iterator<Map.Entry<String, Integer>> eldest = index.entrySet().iterator();
+            slot = eldest.next().getValue();
+            eldest.remove();
+        }
+        
+        try {
+            MappedByteBuffer segment = segment(slot);
+            int offset = (slot % SLOTS_PER_SEGMENT) * slotBytes;
+            byte[] counts = new byte[4 * tile.length];
+            ByteBuffer.wrap(counts).asIntBuffer().put(tile);
+            segment.putInt(offset, keyBytes.length);
+            segment.putInt(offset + 4, tile.length);
+            segment.putInt(offset + 8, checksum(keyBytes, counts));
+            ByteBuffer slotBuffer = segment.duplicate();
+            slotBuffer.position(offset + 12);
+            slotBuffer.put(keyBytes);
+            slotBuffer.position(offset + SLOT_HEADER);
+            slotBuffer.put(counts);
+            index.put(key, slot);
+            indexChanged = true;
+        } catch (IOException iE) {
+            iE.printStackTrace();
+            freeSlots.add(slot);
+        }
+    }
+    
+    /** write the tiles to the disk, and then the index, so that the next session finds them */
+    public synchronized void flush() {
+        if (!indexChanged || channel == null) {
+            return;
+        }
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+        
+        try {
+            writeIndex();
+            indexChanged = false;
+        } catch (IOException iE) {
+            iE.printStackTrace();
+        }
+    }
+    
+    /**
+     * flush the cache, and close the data file, which releases its lock; the cache cannot be used any more.
+     * The mapped segments are unmapped when they are garbage collected (Java cannot unmap them itself)
+     */
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        flush();
+        segments.clear();
+        index.clear();
+        freeSlots.clear();
+        try {
+            // closing the file releases the lock as well
+            dataFile.close();
+        } catch (IOException iE) {
+            iE.printStackTrace();
+        }
+        channel = null;
+        lock = null;
+    }
+    
+    /** the number of tiles on the disk */
+    public synchronized int getTileCount() {
+        return index.size();
+    }
+    
+    /** the checksum of a slot: the key and the counts, as they are stored */
+    private static int checksum(byte[] keyBytes, byte[] counts) {
+        CRC32 crc = new CRC32();
+        crc.update(keyBytes);
+        crc.update(counts);
+        return (int) crc.getValue();
+    }
+    
+    private void remove(String key) {
+        Integer slot = index.remove(key);
+        if (slot != null) {
+            freeSlots.add(slot);
+            indexChanged = true;
+        }
+    }
+    
+    /** the mapped segment that holds the slot; the data file grows when a new segment is mapped */
+    private MappedByteBuffer segment(int slot) throws IOException {
+        int number = slot / SLOTS_PER_SEGMENT;
+        while (segments.size() <= number) {
+            segments.add(null);
+        }
+        MappedByteBuffer segment = segments.get(number);
+        if (segment == null) {
+            // the last segment ends at the cap, so that the file does not grow beyond it
+            int slots = Math.min(SLOTS_PER_SEGMENT, maxSlots - number * SLOTS_PER_SEGMENT);
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, (long)number * SLOTS_PER_SEGMENT * slotBytes, (long)slots * slotBytes);
+            segments.set(number, segment);
+        }
+        return segment;
+    }
+    
+    /** read the index file; tiles in slots behind the cap, or from an index of another format, are dropped */
+    private void readIndex() {
+        File file = new File(directory, INDEX_FILE);
+        if (!file.exists()) {
+            return;
+        }
+        
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != slotBytes) {
+                System.out.println("DiskTileCache: " + file + " has another format, starting with an empty cache");
+                return;
+            }
+            int count = in.readInt();
+            boolean[] used = new boolean[maxSlots];
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                int slot = in.readInt();
+                if (slot >= 0 && slot < maxSlots && !used[slot]) {
+                    used[slot] = true;
+                    index.put(key, slot);
+                    usedSlots = Math.max(usedSlots, slot + 1);
+                }
+            }
+            for (int slot = 0; slot < usedSlots; slot++) {
+                if (!used[slot]) {
+                    freeSlots.add(slot);
+                }
+            }
+            System.out.println("DiskTileCache: " + index.size() + " tiles in " + directory);
+        } catch (IOException iE) {
+            // a broken index: the tiles that were read are still fine
+            System.out.println("DiskTileCache: cannot read " + file + ": " + iE);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException iE) {
+                    // nothing to do
+                }
+            }
+        }
+    }
+    
+    /** write the index into a new file first, so that a failure does not destroy the old one */
+    private void writeIndex() throws IOException {
+        File file = new File(directory, INDEX_FILE);
+        File newFile = new File(directory, INDEX_FILE + ".new");
+        
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(newFile)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(slotBytes);
+            out.writeInt(index.size());
+            for (Map.Entry<String, Integer> entry : index.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        } finally {
+            out.close();
+        }
+        
+        if (file.exists() && !file.delete()) {
+            throw new IOException("cannot replace " + file);
+        }
+        if (!newFile.renameTo(file)) {
+            throw new IOException("cannot rename " + newFile + " to " + file);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * DoubleDouble.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+import java.math.BigDecimal;
+
+/**
+ *
+ * DoubleDouble is a number with about 106 bits of precision, stored as the unevaluated sum of two
+ * doubles hi + lo with |lo| <= ulp(hi)/2. It is used for zooms that are too deep for double precision,
+ * but not so deep that BigDecimal is needed; it is a lot faster than BigDecimal.
+ *
+ * The operations change the number itself and return it (like a register), so that the iteration
+ * loops do not create new objects. The algorithms are the ones of Dekker and Knuth, as used in
+ * the QD library of Hida, Li and Bailey.
+ *
+ */
+public final class DoubleDouble {
+    
+    /** the precision of lo relative to hi: 2^-53 */
+    public static final double EPSILON = 1.1102230246251565E-16;
+    
+    /** 2^27 + 1, to split a double into two halves of 26 bits */
+    private static final double SPLITTER = 134217729.0D;
+    
+    public double hi;
+    public double lo;
+    
+    /** Creates a new instance of DoubleDouble with the value 0 */
+    public DoubleDouble() {
+    }
+    
+    public DoubleDouble(double hi) {
+        this.hi = hi;
+    }
+    
+    public DoubleDouble(DoubleDouble a) {
+        hi = a.hi;
+        lo = a.lo;
+    }
+    
+    public DoubleDouble(BigDecimal a) {
+        hi = a.doubleValue();
+        lo = a.subtract(new BigDecimal(hi)).doubleValue();
+    }
+    
+    public DoubleDouble set(DoubleDouble a) {
+        hi = a.hi;
+        lo = a.lo;
+        return this;
+    }
+    
+    public DoubleDouble set(double a) {
+        hi = a;
+        lo = 0.0D;
+        return this;
+    }
+    
+    public double doubleValue() {
+        return hi + lo;
+    }
+    
+    /** this := this + a */
+    public DoubleDouble add(DoubleDouble a) {
+        // two-sum of the high and of the low parts, then renormalize
+        double s = hi + a.hi;
+        double v = s - hi;
+        double e = (hi - (s - v)) + (a.hi - v);
+        double t = lo + a.lo;
+        v = t - lo;
+        double f = (lo - (t - v)) + (a.lo - v);
+        e += t;
+        double s2 = s + e;
+        e = e - (s2 - s);
+        e += f;
+        hi = s2 + e;
+        lo = e - (hi - s2);
+        return this;
+    }
+    
+    /** this := this + a */
+    public DoubleDouble add(double a) {
+        double s = hi + a;
+        double v = s - hi;
+        double e = (hi - (s - v)) + (a - v);
+        e += lo;
+        hi = s + e;
+        lo = e - (hi - s);
+        return this;
+    }
+    
+    /** this := this - a */
+    public DoubleDouble sub(DoubleDouble a) {
+        double s = hi - a.hi;
+        double v = s - hi;
+        double e = (hi - (s - v)) - (a.hi + v);
+        double t = lo - a.lo;
+        v = t - lo;
+        double f = (lo - (t - v)) - (a.lo + v);
+        e += t;
+        double s2 = s + e;
+        e = e - (s2 - s);
+        e += f;
+        hi = s2 + e;
+        lo = e - (hi - s2);
+        return this;
+    }
+    
+    /** this := this + a*b, with the exact product of the two doubles */
+    public DoubleDouble addProduct(double a, double b) {
+        double p = a * b;
+        double pe = productError(a, b, p);
+        double s = hi + p;
+        double v = s - hi;
+        double e = (hi - (s - v)) + (p - v);
+        e += lo + pe;
+        hi = s + e;
+        lo = e - (hi - s);
+        return this;
+    }
+    
+    /** this := this * a */
+    public DoubleDouble mul(DoubleDouble a) {
+        double p = hi * a.hi;
+        double e = productError(hi, a.hi, p);
+        e += hi * a.lo + lo * a.hi;
+        hi = p + e;
+        lo = e - (hi - p);
+        return this;
+    }
+    
+    /** this := this * a */
+    public DoubleDouble mul(double a) {
+        double p = hi * a;
+        double e = productError(hi, a, p);
+        e += lo * a;
+        hi = p + e;
+        lo = e - (hi - p);
+        return this;
+    }
+    
+    /** this := this * this */
+    public DoubleDouble sqr() {
+        double p = hi * hi;
+        double e = productError(hi, hi, p);
+        e += 2.0D * hi * lo;
+        hi = p + e;
+        lo = e - (hi - p);
+        return this;
+    }
+    
+    /** this := this / a */
+    public DoubleDouble div(DoubleDouble a) {
+        // first approximation, then correct it with the remainder this - q1*a
+        double q1 = hi / a.hi;
+        double p = q1 * a.hi;
+        double pe = productError(q1, a.hi, p) + q1 * a.lo;
+        double r = ((hi - p) - pe) + lo;
+        double q2 = r / a.hi;
+        hi = q1 + q2;
+        lo = q2 - (hi - q1);
+        return this;
+    }
+    
+    /** this := this / a */
+    public DoubleDouble div(double a) {
+        double q1 = hi / a;
+        double p = q1 * a;
+        double pe = productError(q1, a, p);
+        double r = ((hi - p) - pe) + lo;
+        double q2 = r / a;
+        hi = q1 + q2;
+        lo = q2 - (hi - q1);
+        return this;
+    }
+    
+    /** the rounding error of the product p = a*b, so that a*b = p + error exactly (Dekker) */
+    private static double productError(double a, double b, double p) {
+        double t = SPLITTER * a;
+        double aHi = t - (t - a);
+        double aLo = a - aHi;
+        t = SPLITTER * b;
+        double bHi = t - (t - b);
+        double bLo = b - bHi;
+        return ((aHi * bHi - p) + aHi * bLo + aLo * bHi) + aLo * bLo;
+    }
+    
+    public String toString() {
+        return new BigDecimal(hi).add(new BigDecimal(lo)).toString();
+    }
+}
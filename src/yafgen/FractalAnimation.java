@@ -0,0 +1,220 @@
+/*
+ * FractalAnimation.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+
+/**
+ * FractalAnimation renders a sequence of frames into PNG files (frame0000.png, frame0001.png, ...)
+ * in a directory, or into one animated GIF file. A subclass decides what changes from frame to
+ * frame: setFrame() changes the parameters, and the frame is rendered with a FractalRenderSpec of them.
+ *
+ * The frames are calculated in a pipeline: several frames are rendered at the same time, so that
+ * their tiles keep the shared render pool busy (a single render leaves workers idle at the end of
+ * every pass, and a small frame has fewer tiles than there are processors), and the finished frames
+ * are written by another thread while the next frames are calculated. Every frame gets the renderer
+ * of the last finished frame as its previous image, so it starts with the pixels both have in common;
+ * a frame that is still being rendered is never used, its pixels are not complete.
+ */
+public abstract class FractalAnimation {
+    
+    /** the frames that are rendered at the same time, at least */
+    private static final int MIN_FRAMES_IN_FLIGHT = 2;
+    
+    /** the pixels of all frames that are rendered at the same time, at most (unless MIN_FRAMES_IN_FLIGHT are larger) */
+    private static final long MAX_PIXELS_IN_FLIGHT = 1 << 24;
+    
+    /** the parameters of the animation; setFrame() changes them for every frame */
+    protected final FractalParameters fPars;
+    protected final int frames;
+    
+    /** the speed of an animated GIF file */
+    private int framesPerSecond = 25;
+    
+    private volatile boolean cancelled = false;
+    
+    /** Creates a new instance of FractalAnimation with the given number of frames */
+    public FractalAnimation(FractalParameters fPars, int frames) {
+        if (frames < 1) {
+            throw new IllegalArgumentException("an animation needs at least one frame, not " + frames);
+        }
+        this.fPars = fPars;
+        this.frames = frames;
+    }
+    
+    /** change fPars to the parameters of frame 0 ... frames-1 */
+    protected abstract void setFrame(int frame);
+    
+    public int getFrames() {
+        return frames;
+    }
+    
+    public int getFramesPerSecond() {
+        return framesPerSecond;
+    }
+    
+    public void setFramesPerSecond(int framesPerSecond) {
+        this.framesPerSecond = framesPerSecond;
+    }
+    
+    /**
+     * the number of frames that are rendered at the same time: enough for two tiles per processor,
+     * but not more than MAX_PIXELS_IN_FLIGHT
+     */
+    public int getFramesInFlight() {
+        long pixels = (long)fPars.getSizeX() * fPars.getSizeY();
+        long tileSize = FractalRasterIteration.TILE_SIZE;
+        long tiles = ((fPars.getSizeX() + tileSize - 1) / tileSize) * ((fPars.getSizeY() + tileSize - 1) / tileSize);
+        long framesForPool = (2L * Runtime.getRuntime().availableProcessors() + tiles - 1) / Math.max(1, tiles);
+        long framesForMemory = MAX_PIXELS_IN_FLIGHT / Math.max(1, pixels);
+        return (int) Math.max(MIN_FRAMES_IN_FLIGHT, Math.min(framesForPool, framesForMemory));
+    }
+    
+    /** the file of a frame in the directory */
+    public File frameFile(File directory, int frame) {
+        return new File(directory, "frame" + String.format("%0" + Math.max(4, Integer.toString(frames - 1).length()) + "d", frame) + ".png");
+    }
+    
+    /** stop the animation; render() returns after the frames that are being rendered */
+    public void cancel() {
+        cancelled = true;
+    }
+    
+    /** render all frames into PNG files in the directory, or into an animated GIF file if out ends with .gif */
+    public void render(File out) throws IOException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        cancelled = false;
+        
+        GifSequenceWriter gif = null;
+        if (out.getName().toLowerCase().endsWith(".gif")) {
+            gif = new GifSequenceWriter(out, framesPerSecond);
+        }
+        
+        int framesInFlight = getFramesInFlight();
+        ExecutorService renderThreads = Executors.newFixedThreadPool(framesInFlight);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        LinkedList<Future<BufferedImage>> rendering = new LinkedList<Future<BufferedImage>>();
+        LinkedList<FractalRenderer> renderers = new LinkedList<FractalRenderer>();
+        LinkedList<Future<?>> writing = new LinkedList<Future<?>>();
+        FractalRenderer finished = null;
+        // the frames are handed to the writer in order, so this is also the number of the next one
+        int written = 0;
+        
+        try {
+            for (int frame = 0; frame < frames && !cancelled; frame++) {
+                // the oldest frame in flight is done soon; hand it to the writer, then its renderer can be the previous image
+                if (rendering.size() >= framesInFlight) {
+                    write(rendering.removeFirst(), written++, out, gif, writer, writing, startTime);
+                    finished = renderers.removeFirst();
+                }
+                
+                setFrame(frame);
+                final FractalRenderSpec spec = new FractalRenderSpec(fPars);
+                final FractalRenderer renderer = FractalRenderer.forType(fPars.getCurrentFractalType());
+                if (renderer == null) {
+                    throw new IllegalArgumentException("unknown fractal type " + fPars.getCurrentFractalType());
+                }
+                renderer.setPrevious(finished);
+                
+                rendering.add(renderThreads.submit(new Callable<BufferedImage>() {
+                    public BufferedImage call() {
+                        return renderer.render(spec);
+                    }
+                }));
+                renderers.add(renderer);
+            }
+            
+            while (!rendering.isEmpty()) {
+                write(rendering.removeFirst(), written++, out, gif, writer, writing, startTime);
+            }
+            while (!writing.isEmpty()) {
+                waitFor(writing.removeFirst());
+            }
+        } finally {
+            renderThreads.shutdownNow();
+            writer.shutdownNow();
+            if (gif != null) {
+                // the writer thread may still be busy with a frame if a render failed
+                writer.awaitTermination(1, TimeUnit.MINUTES);
+                gif.close();
+            }
+        }
+        
+        System.out.println(this.getClass() + ": " + written + " of " + frames + " frames (" + framesInFlight + " at a time) after " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+    
+    /** wait for the render of a frame, and let the writer save it; at most MIN_FRAMES_IN_FLIGHT frames wait for the writer */
+    private void write(Future<BufferedImage> rendered, final int frame, File out, final GifSequenceWriter gif, ExecutorService writer,
+            LinkedList<Future<?>> writing, final long startTime) throws IOException, InterruptedException {
+        final BufferedImage image = waitFor(rendered);
+        if (image == null) {
+            throw new IOException("frame " + frame + " could not be rendered");
+        }
+        
+        while (writing.size() >= MIN_FRAMES_IN_FLIGHT) {
+            waitFor(writing.removeFirst());
+        }
+        
+        // the writer is a single thread, so the frames of a GIF file are written in order
+        final File file = (gif == null) ? frameFile(out, frame) : out;
+        writing.add(writer.submit(new Callable<Object>() {
+            public Object call() throws IOException {
+                if (gif == null) {
+                    ImageIO.write(image, "png", file);
+                } else {
+                    gif.writeFrame(image);
+                }
+                System.out.println("FractalAnimation: frame " + (frame + 1) + " of " + frames + " written after " + (System.currentTimeMillis() - startTime) + " ms");
+                return null;
+            }
+        }));
+    }
+    
+    /** the result of a task of the pipeline, with its error passed on */
+    private static <T> T waitFor(Future<T> task) throws IOException, InterruptedException {
+        try {
+            return task.get();
+        } catch (ExecutionException eE) {
+            if (eE.getCause() instanceof IOException) {
+                throw (IOException) eE.getCause();
+            }
+            throw new IOException(eE.getCause());
+        }
+    }
+}
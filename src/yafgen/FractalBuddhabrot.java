@@ -0,0 +1,288 @@
+/*
+ * FractalBuddhabrot.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+import java.awt.image.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class FractalBuddhabrot implements the density image of the Mandelbrot iteration called
+ * "Buddhabrot": random points c are iterated with z[n+1] := z[n]? + c; z[0] := 0, and every
+ * point z[n] of the orbit adds a hit to its pixel. The Buddhabrot plots the orbits that escape,
+ * the Anti-Buddhabrot those that stay bounded for maxIterations.
+ *
+ * The sampling is split into short tasks for the render pool, so that other work of the pool
+ * (e.g. a recolor, or the tiles of another image) does not wait for the whole render. Every task
+ * counts into one of a few histograms, which no other task uses at the same time, so the tasks
+ * share nothing while they sample. The histograms are only summed up when the image is drawn:
+ * every UPDATE_INTERVAL ms while the tasks run, and once more at the end.
+ * The number of sampled points is 'count' of FractalParameters, or unlimited in an infinite loop.
+ */
+public class FractalBuddhabrot extends FractalRenderer {
+    
+    /** the points c are sampled from this square, which contains the whole Mandelbrot set */
+    private static final double SAMPLE_MIN = -2.0D, SAMPLE_MAX = 2.0D;
+    
+    /** milliseconds between two preview images */
+    private static final int UPDATE_INTERVAL = 1000;
+    
+    /** the iterations of one task at most (maxIterations for every point), so that a task takes a few milliseconds */
+    private static final long ITERATIONS_PER_TASK = 1L << 22;
+    
+    /** the counts of all histograms together at most; a large image gets fewer histograms than there are workers */
+    private static final long MAX_HISTOGRAM_COUNTS = 1L << 25;
+    
+    /** true for the Anti-Buddhabrot, which plots the orbits that do not escape */
+    private final boolean bounded;
+    
+    /** the histograms: the number of orbit points in every pixel, one row after the other; each is used by one task at a time */
+    private int[][] hits;
+    /** the sum of the histograms, when the image is drawn */
+    private long[] density;
+    
+    /** the view window of the current render; fixed when doWork() starts */
+    private int sizeX, sizeY;
+    private double xMin, yMax, xScale, yScale;
+    
+    /** Creates a new instance of FractalBuddhabrot, which plots the escaping orbits */
+    public FractalBuddhabrot() {
+        this(false);
+    }
+    
+    /** Creates a new instance of FractalBuddhabrot; the Anti-Buddhabrot if bounded is true */
+    public FractalBuddhabrot(boolean bounded) {
+        this.bounded = bounded;
+    }
+    
+    public boolean isBounded() {
+        return bounded;
+    }
+    
+    protected BufferedImage doWork() {
+        
+        System.out.println( this.getClass() + ": doWork() started");
+        long startTime = System.currentTimeMillis();
+        
+        sizeX = spec.getSizeX();
+        sizeY = spec.getSizeY();
+        xMin = spec.getXMin();
+        yMax = spec.getYMax();
+        xScale = sizeX / (spec.getXMax() - spec.getXMin());
+        yScale = sizeY / (spec.getYMax() - spec.getYMin());
+        
+        // the density of every pixel is kept as its color index, so that the image can be recolored
+        int pixelCount = sizeX * sizeY;
+        iterations = new int[pixelCount];
+        density = new long[pixelCount];
+        
+        int histograms = (int) Math.max(1L, Math.min(renderPool.getParallelism(), MAX_HISTOGRAM_COUNTS / Math.max(1, pixelCount)));
+        hits = new int[histograms][pixelCount];
+        
+        // every task hands its histogram back through this queue when it is done
+        BlockingQueue<Integer> finished = new ArrayBlockingQueue<Integer>(histograms);
+        SampleTask[] tasks = new SampleTask[histograms];
+        long samplesPerTask = Math.max(1L, ITERATIONS_PER_TASK / Math.max(1, spec.getMaxIterations()));
+        long remaining = spec.getCount();
+        long samples = 0L;
+        int running = 0;
+        
+        for (int i = 0; i < histograms && (remaining > 0L || spec.isInfiniteLoop()); i++) {
+            tasks[i] = new SampleTask(i, spec.isInfiniteLoop() ? samplesPerTask : Math.min(samplesPerTask, remaining), finished);
+            remaining -= tasks[i].samples;
+            renderPool.execute(tasks[i]);
+            running++;
+        }
+        
+        long nextUpdate = System.currentTimeMillis() + UPDATE_INTERVAL;
+        while (running > 0) {
+            Integer histogram;
+            try {
+                histogram = finished.poll(Math.max(0L, nextUpdate - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException iE) {
+                System.out.println( this.getClass() + ": interrupt exception caught");
+                // the tasks that are running are short; wait for them, so that their histograms are complete
+                cancelled = true;
+                continue;
+            }
+            
+            if (histogram == null) {
+                // show the image as it grows
+                if (!cancelled) {
+                    drawDensity();
+                    fireImageUpdated();
+                }
+                nextUpdate = System.currentTimeMillis() + UPDATE_INTERVAL;
+                continue;
+            }
+            
+            // the task is done with the histogram; give it to the next one, as long as there are points left
+            SampleTask task = tasks[histogram];
+            task.join();
+            samples += task.sampled;
+            running--;
+            if (!cancelled && (remaining > 0L || spec.isInfiniteLoop())) {
+                tasks[histogram] = new SampleTask(histogram, spec.isInfiniteLoop() ? samplesPerTask : Math.min(samplesPerTask, remaining), finished);
+                remaining -= tasks[histogram].samples;
+                renderPool.execute(tasks[histogram]);
+                running++;
+            }
+        }
+        
+        // all tasks have handed their histograms back, so all their hits are visible here
+        drawDensity();
+        
+        System.out.println( this.getClass() + ": doWork() finished after " + (System.currentTimeMillis() - startTime) + " ms, "
+                + samples + " points sampled into " + histograms + " histograms");
+        
+        hits = null;
+        density = null;
+        return bufferedImage;
+    }
+    
+    /**
+     * sum up the histograms, and color every pixel by its density. While tasks are still running,
+     * this reads their histograms without any synchronization; a preview may miss the latest hits,
+     * but that does not matter.
+     */
+    private void drawDensity() {
+        long maxDensity = 0L;
+        for (int index = 0; index < density.length; index++) {
+            long sum = 0L;
+            for (int[] histogram : hits) {
+                sum += histogram[index];
+            }
+            density[index] = sum;
+            maxDensity = Math.max(maxDensity, sum);
+        }
+        
+        // pixels without hits get the color of maxIterations (like the inside of the Mandelbrot set);
+        // the others a color index by the square root of their density, which runs through the
+        // color set once: up to maxIterations-1, or to the length of a user defined gradient
+        int maxIterations = spec.getMaxIterations();
+        int levels = maxIterations;
+        if (spec.getSelectedColorSet() == FractalPalette.COLOR_SET_GRADIENT) {
+            levels = Math.max(Math.min(spec.getGradientLength(), maxIterations), 1);
+        }
+        for (int index = 0; index < density.length; index++) {
+            int level = maxIterations;
+            if (density[index] > 0L) {
+                level = Math.min((int)((levels - 1) * Math.sqrt((double)density[index] / (double)maxDensity)), levels - 1);
+            }
+            iterations[index] = level;
+            pixels[index] = palette.getRGB(level);
+        }
+    }
+    
+    /**
+     * SampleTask iterates a number of random points c, and counts the points of the orbits that
+     * are plotted in its histogram; it hands the histogram back when it is done.
+     */
+    private class SampleTask extends RecursiveAction {
+        
+        private final int histogram;
+        private final long samples;
+        private final BlockingQueue<Integer> finished;
+        /** the points that were sampled; read after the task is done */
+        private long sampled = 0L;
+        
+        SampleTask(int histogram, long samples, BlockingQueue<Integer> finished) {
+            this.histogram = histogram;
+            this.samples = samples;
+            this.finished = finished;
+        }
+        
+        protected void compute() {
+            try {
+                int[] counts = hits[histogram];
+                int maxIterations = spec.getMaxIterations();
+                double[] orbitX = new double[maxIterations];
+                double[] orbitY = new double[maxIterations];
+                // every worker thread has its own generator, seeded differently in every run
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                
+                for (; sampled < samples && !cancelled; sampled++) {
+                    double x = random.nextDouble(SAMPLE_MIN, SAMPLE_MAX);
+                    double y = random.nextDouble(SAMPLE_MIN, SAMPLE_MAX);
+                    plotOrbit(counts, orbitX, orbitY, iterateOrbit(x, y, orbitX, orbitY));
+                }
+            } finally {
+                finished.add(histogram);
+            }
+        }
+        
+        /**
+         * iterate the point c = x + iy like FractalMandelbrot, and keep the points of its orbit;
+         * returns how many of them are to be plotted, 0 if the orbit does not belong to the image
+         */
+        private int iterateOrbit(double x, double y, double[] orbitX, double[] orbitY) {
+            int maxIterations = orbitX.length;
+            
+            // points in the main cardioid or in the period-2 bulb never escape, so the Buddhabrot does not need them
+            if (!bounded && spec.isInteriorCheck() && FractalMandelbrot.isInMainCardioidOrBulb(x, y)) {
+                return 0;
+            }
+            
+            double tmpX = 0.0D, tmpY = 0.0D, tmpX_old = 0.0D;
+            double maxLength = spec.getMaxLength();
+            int i = 0;
+            
+            // z[n+1] := z[n]? + c; z[0] := 0
+            do {
+                tmpX_old = tmpX;
+                tmpX = tmpX*tmpX - tmpY*tmpY + x;
+                tmpY = 2*tmpX_old*tmpY + y;
+                orbitX[i] = tmpX;
+                orbitY[i] = tmpY;
+                i++;
+            } while (((tmpX*tmpX + tmpY*tmpY) <= maxLength) && (i < maxIterations));
+            
+            boolean escaped = (tmpX*tmpX + tmpY*tmpY) > maxLength;
+            return (escaped != bounded) ? i : 0;
+        }
+        
+        /**
+         * add a hit to the pixel of every orbit point that lies in the view window; the first point
+         * z[1] = c is left out, it would only add the sampled square as an even background
+         */
+        private void plotOrbit(int[] counts, double[] orbitX, double[] orbitY, int length) {
+            for (int i = 1; i < length; i++) {
+                // the coordinates are compared before the cast, so that points far outside cannot overflow
+                double px = (orbitX[i] - xMin) * xScale;
+                double py = (yMax - orbitY[i]) * yScale;
+                if ((px >= 0.0D) && (px < sizeX) && (py >= 0.0D) && (py < sizeY)) {
+                    counts[(int)py * sizeX + (int)px]++;
+                }
+            }
+        }
+    }
+    
+}
@@ -37,8 +37,7 @@ import java.awt.*;
 public class FractalIFS extends FractalIterationFunction {
     
     /** Creates a new instance of FractalIFS */
-    public FractalIFS(YaFGenMainFrame myFrame, FractalParameters myFPars) {
-        super(myFrame, myFPars);
+    public FractalIFS() {
     }        
     
     protected void doIteration() {
@@ -51,12 +50,8 @@ public class FractalIFS extends FractalIterationFunction {
             k++;
         
         // x[n+1] = MAk * x[n] + Vk;   n>1
-        xNew = new Double(fPars.a.get(k).toString())*xIter + 
-                new Double(fPars.b.get(k).toString())*yIter +
-                new Double(fPars.e.get(k).toString());
-        yNew = new Double(fPars.c.get(k).toString())*xIter + 
-                new Double(fPars.d.get(k).toString())*yIter + 
-                new Double(fPars.f.get(k).toString());
+        xNew = spec.getA(k)*xIter + spec.getB(k)*yIter + spec.getE(k);
+        yNew = spec.getC(k)*xIter + spec.getD(k)*yIter + spec.getF(k);
         
     }
 }
@@ -42,43 +42,45 @@ import java.awt.image.*;
 /**
  *
  * FractalImage represents the graphicsl representation of a fractal on the screen.
- * It provides the management of the worker thread, mouse interaction (zooming),
- * painting/repainting and calculating a new color
+ * It provides the management of the worker thread, mouse interaction (zooming) and
+ * painting/repainting; the fractal itself is calculated by a FractalRenderer.
  *
  */
-public abstract class FractalImage extends JPanel {
+public class FractalImage extends JPanel implements FractalRenderListener {
     
     protected FractalParameters fPars;
     
+    /** the fractal that is shown */
+    protected FractalRenderer renderer;
+    
     protected int sizeX_old, sizeY_old;
     
     /** reference to the main application */
     protected YaFGenMainFrame mainFrame;
     
-    /** we paint into this buffered image, and display that one periodically */
-    protected BufferedImage bufferedImage;
-    protected Graphics2D graphics;
-    
-    protected boolean finishedDrawing = false;
     protected boolean repaintFlag = true;
     protected SwingWorker worker;
     
     /**
      * Creates a new instance of FractalImage
      */
-    public FractalImage(YaFGenMainFrame myFrame, FractalParameters myFPars) {
+    public FractalImage(YaFGenMainFrame myFrame, FractalParameters myFPars, FractalRenderer myRenderer) {
         mainFrame = myFrame;
-        
         fPars = myFPars;
         
-        bufferedImage = new BufferedImage(fPars.getSizeX(), fPars.getSizeY(), BufferedImage.TYPE_USHORT_555_RGB);
-        graphics = bufferedImage.createGraphics();
+        renderer = myRenderer;
+        renderer.addRenderListener(this);
     }
     
-    /** abstract method that does the calculation of the fractal */
-    public abstract Object doWork();
+    public FractalRenderer getRenderer() {
+        return renderer;
+    }
     
     public void setMouseDraggedRect( Point pointMouseDraggedStart, Point pointMouseDraggedEnd, Point oldPointMouse ) {
+        Graphics2D graphics = renderer.getGraphics();
+        if (graphics == null) {
+            return;
+        }
         graphics.setXORMode(Color.BLUE);
         
         // clear old rectangle
@@ -109,7 +111,6 @@ public abstract class FractalImage extends JPanel {
     
     public void repaint( boolean paint ) {
         repaintFlag = true;
-        finishedDrawing = false;
         repaint();
     }
     
@@ -124,17 +125,16 @@ public abstract class FractalImage extends JPanel {
         if( repaintFlag == true ) {
             if( worker != null ) {
                 System.out.println("repaintFlag == true, let's interrupt worker");
-                worker.interrupt();
+                interruptWorker();
             }
             
-            // create new buffer for new worker
-            bufferedImage = new BufferedImage(fPars.getSizeX(), fPars.getSizeY(), BufferedImage.TYPE_USHORT_555_RGB);
-            graphics = bufferedImage.createGraphics();
+            // freeze the parameters: the user interface may change them while the worker is running
+            final FractalRenderSpec spec = new FractalRenderSpec(fPars);
             
             // create new worker ...
             worker = new SwingWorker() {
                 public Object construct() {
-                    return doWork();
+                    return renderer.render(spec);
                 }
                 
                 public void finished() {
@@ -155,10 +155,16 @@ public abstract class FractalImage extends JPanel {
         Graphics2D comp2D = (Graphics2D) comp;
         comp2D.setColor(Color.BLACK);
         
-        comp2D.drawImage(bufferedImage, null, 0, 0);
+        // the renderer creates its image in the worker thread, so there may be none yet
+        BufferedImage bufferedImage = renderer.getBufferedImage();
+        if (bufferedImage != null) {
+            comp2D.drawImage(bufferedImage, null, 0, 0);
+        }
     }
     
+    /** stop the render, e.g. when the user presses 'stop' or a new image replaces this one */
     public void interruptWorker() {
+        renderer.cancel();
         if(worker != null)
             worker.interrupt();
     }
@@ -168,107 +174,41 @@ public abstract class FractalImage extends JPanel {
     }
     
     public BufferedImage getBufferedImage() {
-        return bufferedImage;
+        return renderer.getBufferedImage();
     }
     
     boolean getFinishedDrawing() {
-        return finishedDrawing;
+        return renderer.getFinishedDrawing();
     }
     
-    protected Color calcNewColorIterations(final int iterations) {
-        Color c;
-        
-        // find out color value by some weird algo
-        switch( fPars.getSelectedColorSet() ) {
-            case 1:
-                if( iterations != fPars.getMaxIterations() ) {
-                    float floatIterations = (float)iterations/(float)fPars.getMaxIterations();
-                    c = Color.getHSBColor( floatIterations, 1.0F, 1.0F );
-                } else
-                    c = Color.BLACK;
-                break;
-                
-            case 2:
-                if( iterations != fPars.getMaxIterations() ) {
-                    float floatIterations = (float)iterations/(float)fPars.getMaxIterations() + 0.8F;
-                    c = Color.getHSBColor( floatIterations, 1.0F, 1.0F );
-                } else
-                    c = Color.BLACK;
-                break;
-                
-            case 3:
-                if( iterations != fPars.getMaxIterations() ) {
-                    float floatIterations = (float)iterations/(float)fPars.getMaxIterations() *5.2F;
-                    c = Color.getHSBColor( floatIterations, 0.4F, 1.0F );
-                } else
-                    c = Color.BLACK;
-                break;
-                
-            case 4:
-                if( iterations != fPars.getMaxIterations() ) {
-                    float floatIterations = (float)iterations/(float)fPars.getMaxIterations() *10.0F;
-                    c = Color.getHSBColor( floatIterations, 0.8F, 1.0F );
-                } else
-                    c = Color.BLACK;
-                break;
-                
-            default:
-                if( iterations != fPars.getMaxIterations() ) {
-                    float floatIterations = (float)iterations/(float)fPars.getMaxIterations();
-                    c = Color.getHSBColor( floatIterations, 1.0F, 1.0F );
-                } else
-                    c = Color.BLACK;
-                break;
+    /** remember the image that this one replaces, e.g. after a zoom or pan */
+    public void setPrevious(FractalImage previous) {
+        renderer.setPrevious(previous == null ? null : previous.renderer);
+    }
+    
+    /**
+     * color the finished image again with the current color set of fPars; see FractalRenderer.recolor().
+     */
+    public boolean recolor() {
+        return renderer.recolor(fPars.getSelectedColorSet(), fPars.getGradient(), fPars.getGradientLength());
+    }
+    
+    public void renderStarted(FractalRenderer renderer) {
+        // there is no frame when the image is not shown in the main window
+        if (mainFrame != null) {
+            mainFrame.setCalculatingLabel( true );
         }
-        
-        return c;
     }
     
-    protected int calcNewColorPixel( final int oldCol ) {
-        int redCol, greenCol, blueCol;
-        
-        // find out the red/green/blue components
-        redCol   = new Color(oldCol).getRed();
-        greenCol = new Color(oldCol).getGreen();
-        blueCol  = new Color(oldCol).getBlue();
-        
-        // now manipulate the rgb components/colors for the new pixel
-        //redCol = (redCol+10)%256;
-        //greenCol = (greenCol+20)%256;
-        
-        switch( fPars.getSelectedColorSet() ) {
-            case 1:
-                redCol = (redCol+1)%256;
-                greenCol = (greenCol+15)%256;
-                blueCol = (blueCol+30)%256;
-                break;
-                
-            case 2:
-                redCol = (redCol+20)%256;
-                greenCol = (greenCol+15)%256;
-                blueCol = (blueCol+10)%256;
-                break;
-                
-            case 3:
-                redCol = (redCol+20)%256;
-                greenCol = (greenCol+1)%256;
-                blueCol = (blueCol+30)%256;
-                break;
-                
-            case 4:
-                redCol = (redCol+1)%256;
-                greenCol = (greenCol+1)%256;
-                blueCol = (blueCol+15)%256;
-                break;
-                
-            default:
-                redCol = (redCol+1)%256;
-                greenCol = (greenCol+15)%256;
-                blueCol = (blueCol+30)%256;
-                
+    public void imageUpdated(FractalRenderer renderer) {
+        // show the new part at once, instead of waiting for the next tick of the repaint timer
+        repaint();
+    }
+    
+    public void renderFinished(FractalRenderer renderer) {
+        if (mainFrame != null) {
+            mainFrame.setCalculatingLabel( false );
         }
-        
-        return( new Color(redCol, greenCol, blueCol).getRGB() );
-        
+        repaint();
     }
-}
\ No newline at end of file
+}
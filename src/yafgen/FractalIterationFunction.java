@@ -50,37 +50,29 @@ import java.awt.image.*;
  * in a subclass.
  *
  */
-public abstract class FractalIterationFunction extends FractalImage {
+public abstract class FractalIterationFunction extends FractalRenderer {
     
     double xRange, yRange;
     double xIter, yIter;
     int xPixel = 0, yPixel = 0;
     double p, flaeche, q[];
     double xNew, yNew;
-    private YaFGenMainFrame myFrame;
     
     /** Creates a new instance of FractalIterationFunction */
-    public FractalIterationFunction(YaFGenMainFrame myFrame, FractalParameters myFPars) {
-        super(myFrame, myFPars);
-        this.myFrame = myFrame;
+    public FractalIterationFunction() {
     }
     
-    public Object doWork() {
+    protected BufferedImage doWork() {
         
         System.out.println( this.getClass() + "doWork() started");
-        myFrame.setCalculatingLabel( true );
         
         Color c = Color.black;
-        finishedDrawing = false;
         
         // for IFS only: determine the area of the function -> find out 'weight'
         q = new double[6]; p = 0.0D;
         
         for( int i=0; i<4; i++ ) {
-            flaeche = Math.abs(new Double(fPars.a.get(i).toString()) *
-                    new Double(fPars.d.get(i).toString()) -
-                    new Double(fPars.b.get(i).toString()) *
-                    new Double(fPars.c.get(i).toString()) );
+            flaeche = Math.abs(spec.getA(i) * spec.getD(i) - spec.getB(i) * spec.getC(i));
             p += ((flaeche > 0.0D) ? flaeche : 0.01D);
             q[i] = p;
         }
@@ -88,10 +80,10 @@ public abstract class FractalIterationFunction extends FractalImage {
             q[i] /= p;
         }
         
-        xRange = (double)(fPars.getXMax() - fPars.getXMin());
-        yRange = (double)(fPars.getYMax() - fPars.getYMin());
-        xIter = fPars.getXStart();
-        yIter = fPars.getYStart();
+        xRange = (double)(spec.getXMax() - spec.getXMin());
+        yRange = (double)(spec.getYMax() - spec.getYMin());
+        xIter = spec.getXStart();
+        yIter = spec.getYStart();
         xPixel = 0;
         yPixel = 0;
         long count = 0L;
@@ -104,12 +96,12 @@ public abstract class FractalIterationFunction extends FractalImage {
         try {
             // as long as we did not reach the number of iterations;
             // or the user did not press 'stop' yet (for infinite loops only)
-            while ( (count < fPars.getCount()) || fPars.isInfiniteLoop() ) {
-                if( fPars.isInfiniteLoopInterrupted() ) {
+            while ( (count < spec.getCount()) || spec.isInfiniteLoop() ) {
+                if( cancelled ) {
                     break;
                 }
                 
-                if (xIter*xIter + yIter*yIter > fPars.getRange() ) {
+                if (xIter*xIter + yIter*yIter > spec.getRange() ) {
                     System.out.println("Overflow!");
                     return null;
                 }
@@ -118,12 +110,12 @@ public abstract class FractalIterationFunction extends FractalImage {
                 doIteration();
                 
                 // now calculate the pixel on the screen
-                xPixel = (int)(fPars.getSizeX() * (xNew - fPars.getXMin()) / xRange);
-                yPixel = fPars.getSizeY() - (int)(fPars.getSizeY() * (yNew - fPars.getYMin()) /yRange);
+                xPixel = (int)(spec.getSizeX() * (xNew - spec.getXMin()) / xRange);
+                yPixel = spec.getSizeY() - (int)(spec.getSizeY() * (yNew - spec.getYMin()) /yRange);
                 
                 // check if the pixel is in the defined range; if not just skip painting
                 if( (count>7L) &&
-                        (xPixel>=0) && (xPixel<fPars.getSizeX()) && (yPixel>=0) && (yPixel<fPars.getSizeY()) ) {
+                        (xPixel>=0) && (xPixel<spec.getSizeX()) && (yPixel>=0) && (yPixel<spec.getSizeY()) ) {
                     
                     // find out the color of this pixel
                     rgbCol = bufferedImage.getRGB(xPixel, yPixel);
@@ -148,7 +140,7 @@ public abstract class FractalIterationFunction extends FractalImage {
                         throw new InterruptedException();
                     }
                     // sleep that we can see the 'growing' of the image
-                    Thread.sleep(fPars.getSleep());
+                    Thread.sleep(spec.getSleep());
                 }
                 
             }
@@ -157,10 +149,6 @@ public abstract class FractalIterationFunction extends FractalImage {
             System.out.println( this.getClass() + ": interrupt exception caught");
         }
         
-        // we are done with the entire image, so set the flag
-        finishedDrawing = true;
-        myFrame.setCalculatingLabel( false );                                
-        
         // return the drawn image object
         return bufferedImage;
         
@@ -35,8 +35,7 @@ package yafgen;
 public class FractalJulia extends FractalRasterIteration {
     
     /** Creates a new instance of FractalJulia */
-    public FractalJulia(YaFGenMainFrame myFrame, FractalParameters myFPars) {
-        super(myFrame, myFPars);
+    public FractalJulia() {
     }
     
     protected int doIteration(double x, double y) {
@@ -44,15 +43,205 @@ public class FractalJulia extends FractalRasterIteration {
         double tmpX = x, tmpY = y, tmpX_old = x;
         int i = 0;
         
+        // cycle detection (Brent): remember z at every power of two, and compare the following values with it
+        double tolerance = getPeriodicityTolerance();
+        double savedX = tmpX, savedY = tmpY;
+        
+        // local copies, so that they can stay in registers during the loop
+        double xFix = spec.getXFix(), yFix = spec.getYFix();
+        double maxLength = spec.getMaxLength();
+        int maxIterations = spec.getMaxIterations();
+        int saveAt = 2;
+        
         // z[n+1] := z[n]? + c; z[0] := fix
         do {
             i++;
             tmpX_old = tmpX;
-            tmpX = tmpX*tmpX - tmpY*tmpY + fPars.getXFix();
-            tmpY = 2*tmpX_old*tmpY + fPars.getYFix();
-        } while (((tmpX*tmpX + tmpY*tmpY) <= fPars.getMaxLength()) && (i < fPars.getMaxIterations()));
+            tmpX = tmpX*tmpX - tmpY*tmpY + xFix;
+            tmpY = 2*tmpX_old*tmpY + yFix;
+            
+            if (tolerance > 0.0D) {
+                if (Math.abs(tmpX - savedX) < tolerance && Math.abs(tmpY - savedY) < tolerance) {
+                    // the orbit is periodic, so the point will never escape
+                    return maxIterations;
+                }
+                if (i == saveAt) {
+                    savedX = tmpX; savedY = tmpY;
+                    saveAt *= 2;
+                }
+            }
+        } while (((tmpX*tmpX + tmpY*tmpY) <= maxLength) && (i < maxIterations));
         
         return  i;
     }
     
+    protected boolean hasDistanceEstimation() {
+        return true;
+    }
+    
+    /**
+     * doIteration(double, double) with the derivative dz/dz[0] alongside z: dz[n+1] := 2 z[n] dz[n], dz[0] := 1.
+     * An escaped point is iterated on up to DISTANCE_BAILOUT, which makes its distance estimate more exact;
+     * the iteration count stays the one at maxLength.
+     */
+    protected int doDistanceIteration(double x, double y, float[] distance, int index) {
+        int maxIterations = spec.getMaxIterations();
+        distance[index] = 0.0F;
+        
+        double zX = x, zY = y, dzX = 1.0D, dzY = 0.0D, tmp;
+        double xFix = spec.getXFix(), yFix = spec.getYFix();
+        double tolerance = getPeriodicityTolerance();
+        double savedX = zX, savedY = zY;
+        double maxLength = spec.getMaxLength();
+        int i = 0, escaped = 0, saveAt = 2;
+        
+        do {
+            i++;
+            tmp = 2*(zX*dzX - zY*dzY);
+            dzY = 2*(zX*dzY + zY*dzX);
+            dzX = tmp;
+            tmp = zX*zX - zY*zY + xFix;
+            zY = 2*zX*zY + yFix;
+            zX = tmp;
+            
+            if (escaped == 0) {
+                if (tolerance > 0.0D) {
+                    if (Math.abs(zX - savedX) < tolerance && Math.abs(zY - savedY) < tolerance) {
+                        // the orbit is periodic, so the point will never escape
+                        return maxIterations;
+                    }
+                    if (i == saveAt) {
+                        savedX = zX; savedY = zY;
+                        saveAt *= 2;
+                    }
+                }
+                if (!((zX*zX + zY*zY) <= maxLength)) {
+                    escaped = i;
+                }
+            }
+        } while (((zX*zX + zY*zY) <= DISTANCE_BAILOUT) && (i < maxIterations));
+        
+        if (escaped == 0) {
+            return maxIterations;
+        }
+        distance[index] = (float) distanceEstimate(zX, zY, dzX, dzY);
+        return escaped;
+    }
+    
+    /**
+     * iterate the points four at a time: the four orbits do not depend on each other, so the processor
+     * can work on them in parallel instead of waiting for the result of every single multiplication
+     */
+    protected void doIterations(double[] x, double[] y, int[] result, int count) {
+        int p = 0;
+        for (; p + 4 <= count; p += 4) {
+            doIterations4(x, y, result, p);
+        }
+        for (; p < count; p++) {
+            result[p] = doIteration(x[p], y[p]);
+        }
+    }
+    
+    /** the loop of doIteration(double, double) for the points p ... p+3 side by side */
+    private void doIterations4(double[] x, double[] y, int[] result, int p) {
+        double maxLength = spec.getMaxLength();
+        int maxIterations = spec.getMaxIterations();
+        double tolerance = getPeriodicityTolerance();
+        double cX = spec.getXFix(), cY = spec.getYFix();
+        
+        double zX0 = x[p], zX1 = x[p + 1], zX2 = x[p + 2], zX3 = x[p + 3];
+        double zY0 = y[p], zY1 = y[p + 1], zY2 = y[p + 2], zY3 = y[p + 3];
+        double sX0 = zX0, sX1 = zX1, sX2 = zX2, sX3 = zX3;
+        double sY0 = zY0, sY1 = zY1, sY2 = zY2, sY3 = zY3;
+        double tmp;
+        
+        // 0 as long as the point is iterated; a finished point is iterated further, but its result is kept
+        int r0 = 0, r1 = 0, r2 = 0, r3 = 0;
+        int i = 0, saveAt = 2;
+        
+        while (r0 == 0 || r1 == 0 || r2 == 0 || r3 == 0) {
+            i++;
+            tmp = zX0; zX0 = zX0*zX0 - zY0*zY0 + cX; zY0 = 2*tmp*zY0 + cY;
+            tmp = zX1; zX1 = zX1*zX1 - zY1*zY1 + cX; zY1 = 2*tmp*zY1 + cY;
+            tmp = zX2; zX2 = zX2*zX2 - zY2*zY2 + cX; zY2 = 2*tmp*zY2 + cY;
+            tmp = zX3; zX3 = zX3*zX3 - zY3*zY3 + cX; zY3 = 2*tmp*zY3 + cY;
+            
+            if (r0 == 0) {
+                r0 = laneResult(zX0, zY0, sX0, sY0, i, tolerance, maxLength, maxIterations);
+            }
+            if (r1 == 0) {
+                r1 = laneResult(zX1, zY1, sX1, sY1, i, tolerance, maxLength, maxIterations);
+            }
+            if (r2 == 0) {
+                r2 = laneResult(zX2, zY2, sX2, sY2, i, tolerance, maxLength, maxIterations);
+            }
+            if (r3 == 0) {
+                r3 = laneResult(zX3, zY3, sX3, sY3, i, tolerance, maxLength, maxIterations);
+            }
+            
+            if (i == saveAt) {
+                sX0 = zX0; sY0 = zY0; sX1 = zX1; sY1 = zY1;
+                sX2 = zX2; sY2 = zY2; sX3 = zX3; sY3 = zY3;
+                saveAt *= 2;
+            }
+        }
+        
+        result[p] = r0;
+        result[p + 1] = r1;
+        result[p + 2] = r2;
+        result[p + 3] = r3;
+    }
+    
+    /** the loop of doIteration(double, double), which only looks for a cycle before the point escapes */
+    protected int findCycle(double x, double y, double tolerance) {
+        double tmpX = x, tmpY = y, tmpX_old = x;
+        double savedX = tmpX, savedY = tmpY;
+        double xFix = spec.getXFix(), yFix = spec.getYFix();
+        double maxLength = spec.getMaxLength();
+        int maxIterations = spec.getMaxIterations();
+        int saveAt = 2;
+        
+        for (int i = 1; i <= maxIterations; i++) {
+            tmpX_old = tmpX;
+            tmpX = tmpX*tmpX - tmpY*tmpY + xFix;
+            tmpY = 2*tmpX_old*tmpY + yFix;
+            
+            if (Math.abs(tmpX - savedX) < tolerance && Math.abs(tmpY - savedY) < tolerance) {
+                return i;
+            }
+            if (!((tmpX*tmpX + tmpY*tmpY) <= maxLength)) {
+                return 0;
+            }
+            if (i == saveAt) {
+                savedX = tmpX; savedY = tmpY;
+                saveAt *= 2;
+            }
+        }
+        return 0;
+    }
+    
+    protected int doIteration(DoubleDouble x, DoubleDouble y) {
+        
+        // the same as doIteration(double, double), without the periodicity check:
+        // it compares doubles, which cannot resolve a fraction of a pixel at this depth
+        DoubleDouble tmpX = new DoubleDouble(x), tmpY = new DoubleDouble(y);
+        DoubleDouble tmpX2 = new DoubleDouble(), tmpY2 = new DoubleDouble();
+        int i = 0;
+        
+        // local copies, so that they can stay in registers during the loop
+        double xFix = spec.getXFix(), yFix = spec.getYFix();
+        double maxLength = spec.getMaxLength();
+        int maxIterations = spec.getMaxIterations();
+        
+        do {
+            i++;
+            tmpX2.set(tmpX).sqr();
+            tmpY2.set(tmpY).sqr();
+            tmpY.mul(tmpX).mul(2.0D).add(yFix);
+            tmpX.set(tmpX2).sub(tmpY2).add(xFix);
+        } while (((tmpX.hi*tmpX.hi + tmpY.hi*tmpY.hi) <= maxLength) && (i < maxIterations));
+        
+        return i;
+    }
+    
 }
@@ -0,0 +1,86 @@
+/*
+ * FractalJuliaAnimation.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+/**
+ * FractalJuliaAnimation morphs a Julia set by moving its constant (xFix, yFix) along a path,
+ * while the view stays the same. The path is
+ *   1: a line from the constant of the parameters to another constant (setLine)
+ *   2: a circle around a point (setCircle), e.g. along the border of the Mandelbrot set,
+ *      where the Julia sets change most. The circle is closed, so the animation can loop.
+ *
+ * Every frame is a new set, so nothing is taken over from the frame before; the frames are
+ * independent and are rendered side by side (see FractalAnimation).
+ */
+public class FractalJuliaAnimation extends FractalAnimation {
+    
+    /** the path of the constant, see above */
+    private int path = 1;
+    
+    /** the line from (x0,y0) to (x1,y1), or the circle around (x0,y0) with the radius */
+    private double x0, y0, x1, y1, radius;
+    
+    /** Creates a new instance of FractalJuliaAnimation; without setLine() or setCircle(), the constant stays the same */
+    public FractalJuliaAnimation(FractalParameters fPars, int frames) {
+        super(fPars, frames);
+        x0 = x1 = fPars.getXFix();
+        y0 = y1 = fPars.getYFix();
+    }
+    
+    /** move the constant on a line from the constant of the parameters to (x1,y1) */
+    public void setLine(double x1, double y1) {
+        path = 1;
+        this.x1 = x1;
+        this.y1 = y1;
+    }
+    
+    /** move the constant once around the circle with the radius around (x,y), starting on the right */
+    public void setCircle(double x, double y, double radius) {
+        path = 2;
+        x0 = x;
+        y0 = y;
+        this.radius = radius;
+    }
+    
+    protected void setFrame(int frame) {
+        switch (path) {
+            case 2:
+                // the last frame stops one step before the first one, so the loop has no double frame
+                double angle = 2 * Math.PI * frame / frames;
+                fPars.setXFix(x0 + radius * Math.cos(angle));
+                fPars.setYFix(y0 + radius * Math.sin(angle));
+                break;
+            default:
+                double t = (frames > 1) ? frame / (double)(frames - 1) : 0;
+                fPars.setXFix(x0 + (x1 - x0) * t);
+                fPars.setYFix(y0 + (y1 - y0) * t);
+                break;
+        }
+    }
+}
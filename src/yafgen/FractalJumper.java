@@ -39,8 +39,7 @@ import java.awt.image.*;
 public class FractalJumper extends FractalIterationFunction {
     
     /** Creates a new instance of FractalJumper */
-    public FractalJumper(YaFGenMainFrame myFrame, FractalParameters myFPars) {
-        super(myFrame, myFPars);
+    public FractalJumper() {
     }
     
     
@@ -49,8 +48,8 @@ public class FractalJumper extends FractalIterationFunction {
         // x[n+1] = y[n] - sign(x[n]) * sqrt( abs( b*x[n] - c ) )
         // y[n+1] = a - x[n]
         xNew = yIter + Math.signum(xIter) *
-                Math.sqrt( Math.abs( fPars.getBJFix()*xIter - fPars.getCJFix() ) );
-        yNew = fPars.getAJFix() - xIter;
+                Math.sqrt( Math.abs( spec.getBJFix()*xIter - spec.getCJFix() ) );
+        yNew = spec.getAJFix() - xIter;
         
     }
 }
@@ -28,31 +28,372 @@
  */
 package yafgen;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+
 /**
  * The class FractalMandelbrot implements a fractal called "Mandelbrot".
- * The only implemented method is doIteration().
+ * The iteration itself is implemented in doIteration().
+ *
+ * When the pixels are too close to each other for double precision, perturbation is used
+ * (unless switched off, then double-double): the orbit of the view center is calculated once with BigDecimal, and every
+ * pixel is iterated with doubles as the small difference (delta) to that reference orbit.
+ * The orbit of the last deep zoom is kept, and used again as long as its point lies in the view and
+ * it has enough digits, e.g. for the next frames of a zoom animation.
  */
 public class FractalMandelbrot extends FractalRasterIteration {
     
+    /** the reference orbit in deep zooms; null if the pixels are calculated with plain doubles */
+    private ReferenceOrbit reference;
+    /** the distance of pixel (0,0) to the point of the reference orbit, and the size of a pixel */
+    private double deltaXMin, deltaYMax, deltaXStep, deltaYStep;
+    
+    /** the reference orbit of the last deep zoom, its point, and the digits and parameters it was calculated with */
+    private static ReferenceOrbit lastReference;
+    private static BigDecimal lastReferenceX, lastReferenceY;
+    private static int lastReferencePrecision, lastReferenceIterations;
+    private static double lastReferenceMaxLength;
+    
     /** Creates a new instance of FractalMandelbrot */
-    public FractalMandelbrot(YaFGenMainFrame myFrame, FractalParameters myFPars) {
-        super(myFrame, myFPars);
+    public FractalMandelbrot() {
+    }
+    
+    protected void prepareIteration() {
+        reference = null;
+        
+        // perturbation is several times faster than double-double, so it is also used where double-double would do
+        if (getPrecision() == PRECISION_DOUBLE || (getPrecision() == PRECISION_DOUBLE_DOUBLE && !spec.isPerturbation())) {
+            return;
+        }
+        
+        // the deltas are taken on the pixel grid of the whole image, like the coordinates in FractalRasterIteration
+        FractalRenderSpec grid = spec.getWholeImage();
+        BigDecimal xMin = grid.preciseXMin(), xMax = grid.preciseXMax();
+        BigDecimal yMin = grid.preciseYMin(), yMax = grid.preciseYMax();
+        double xStep = getXStep(), yStep = getYStep();
+        
+        MathContext mc = FractalParameters.precisionFor(new BigDecimal(Math.min(Math.abs(xStep), Math.abs(yStep))));
+        BigDecimal referenceX, referenceY;
+        
+        synchronized (FractalMandelbrot.class) {
+            if (lastReference != null && lastReferencePrecision >= mc.getPrecision()
+                    && lastReferenceIterations == spec.getMaxIterations() && lastReferenceMaxLength == spec.getMaxLength()
+                    && lastReferenceX.compareTo(xMin) >= 0 && lastReferenceX.compareTo(xMax) <= 0
+                    && lastReferenceY.compareTo(yMin) >= 0 && lastReferenceY.compareTo(yMax) <= 0) {
+                reference = lastReference;
+            }
+            referenceX = lastReferenceX;
+            referenceY = lastReferenceY;
+        }
+        
+        if (reference == null) {
+            BigDecimal two = BigDecimal.valueOf(2);
+            referenceX = xMin.add(xMax).divide(two, mc);
+            referenceY = yMin.add(yMax).divide(two, mc);
+            reference = new ReferenceOrbit(referenceX, referenceY, spec.getMaxIterations(), spec.getMaxLength(), mc);
+            
+            synchronized (FractalMandelbrot.class) {
+                lastReference = reference;
+                lastReferenceX = referenceX;
+                lastReferenceY = referenceY;
+                lastReferencePrecision = mc.getPrecision();
+                lastReferenceIterations = spec.getMaxIterations();
+                lastReferenceMaxLength = spec.getMaxLength();
+            }
+            System.out.println(this.getClass() + ": deep zoom, reference orbit with " + mc.getPrecision() + " digits, length " + reference.getLength());
+        } else {
+            System.out.println(this.getClass() + ": deep zoom, reference orbit of an earlier render");
+        }
+        
+        deltaXStep = xStep;
+        deltaYStep = yStep;
+        deltaXMin = xMin.subtract(referenceX).doubleValue();
+        deltaYMax = yMax.subtract(referenceY).doubleValue();
+    }
+    
+    protected int calcIteration(double px, double py) {
+        if (reference == null) {
+            return super.calcIteration(px, py);
+        }
+        return doPerturbation(deltaXMin + px * deltaXStep, deltaYMax - py * deltaYStep);
     }
     
     protected int doIteration(double x, double y) {
         
+        // points in the main cardioid or in the period-2 bulb never escape, so don't iterate them
+        if (spec.isInteriorCheck() && isInMainCardioidOrBulb(x, y)) {
+            return spec.getMaxIterations();
+        }
+        
         double tmpX = 0.0D, tmpY = 0.0D, tmpX_old = 0.0D;
         int i = 0;
         
+        // cycle detection (Brent): remember z at every power of two, and compare the following values with it
+        double tolerance = getPeriodicityTolerance();
+        double savedX = tmpX, savedY = tmpY;
+        
+        // local copies, so that they can stay in registers during the loop
+        double maxLength = spec.getMaxLength();
+        int maxIterations = spec.getMaxIterations();
+        int saveAt = 2;
+        
         // z[n+1] := z[n]? + c; z[0] := 0 
         do {
             i++;
             tmpX_old = tmpX;
             tmpX = tmpX*tmpX - tmpY*tmpY + x;
             tmpY = 2*tmpX_old*tmpY + y;
-        } while (((tmpX*tmpX + tmpY*tmpY) <= fPars.getMaxLength()) && (i < fPars.getMaxIterations()));
+            
+            if (tolerance > 0.0D) {
+                if (Math.abs(tmpX - savedX) < tolerance && Math.abs(tmpY - savedY) < tolerance) {
+                    // the orbit is periodic, so the point will never escape
+                    return maxIterations;
+                }
+                if (i == saveAt) {
+                    savedX = tmpX; savedY = tmpY;
+                    saveAt *= 2;
+                }
+            }
+        } while (((tmpX*tmpX + tmpY*tmpY) <= maxLength) && (i < maxIterations));
         
         return  i;
     }
     
+    protected boolean hasDistanceEstimation() {
+        return true;
+    }
+    
+    /**
+     * doIteration(double, double) with the derivative dz/dc alongside z: dz[n+1] := 2 z[n] dz[n] + 1.
+     * An escaped point is iterated on up to DISTANCE_BAILOUT, which makes its distance estimate more exact;
+     * the iteration count stays the one at maxLength.
+     */
+    protected int doDistanceIteration(double x, double y, float[] distance, int index) {
+        int maxIterations = spec.getMaxIterations();
+        distance[index] = 0.0F;
+        
+        if (spec.isInteriorCheck() && isInMainCardioidOrBulb(x, y)) {
+            return maxIterations;
+        }
+        
+        double zX = 0.0D, zY = 0.0D, dzX = 0.0D, dzY = 0.0D, tmp;
+        double tolerance = getPeriodicityTolerance();
+        double savedX = zX, savedY = zY;
+        double maxLength = spec.getMaxLength();
+        int i = 0, escaped = 0, saveAt = 2;
+        
+        do {
+            i++;
+            tmp = 2*(zX*dzX - zY*dzY) + 1.0D;
+            dzY = 2*(zX*dzY + zY*dzX);
+            dzX = tmp;
+            tmp = zX*zX - zY*zY + x;
+            zY = 2*zX*zY + y;
+            zX = tmp;
+            
+            if (escaped == 0) {
+                if (tolerance > 0.0D) {
+                    if (Math.abs(zX - savedX) < tolerance && Math.abs(zY - savedY) < tolerance) {
+                        // the orbit is periodic, so the point will never escape
+                        return maxIterations;
+                    }
+                    if (i == saveAt) {
+                        savedX = zX; savedY = zY;
+                        saveAt *= 2;
+                    }
+                }
+                if (!((zX*zX + zY*zY) <= maxLength)) {
+                    escaped = i;
+                }
+            }
+        } while (((zX*zX + zY*zY) <= DISTANCE_BAILOUT) && (i < maxIterations));
+        
+        if (escaped == 0) {
+            return maxIterations;
+        }
+        distance[index] = (float) distanceEstimate(zX, zY, dzX, dzY);
+        return escaped;
+    }
+    
+    /**
+     * iterate the points four at a time: the four orbits do not depend on each other, so the processor
+     * can work on them in parallel instead of waiting for the result of every single multiplication
+     */
+    protected void doIterations(double[] x, double[] y, int[] result, int count) {
+        
+        // the points in the main cardioid and the period-2 bulb are known without iterating
+        int[] todo = new int[count];
+        int todoCount = 0;
+        for (int p = 0; p < count; p++) {
+            if (spec.isInteriorCheck() && isInMainCardioidOrBulb(x[p], y[p])) {
+                result[p] = spec.getMaxIterations();
+            } else {
+                todo[todoCount++] = p;
+            }
+        }
+        
+        int t = 0;
+        for (; t + 4 <= todoCount; t += 4) {
+            doIterations4(x, y, result, todo[t], todo[t + 1], todo[t + 2], todo[t + 3]);
+        }
+        for (; t < todoCount; t++) {
+            result[todo[t]] = doIteration(x[todo[t]], y[todo[t]]);
+        }
+    }
+    
+    /** the loop of doIteration(double, double) for the points p0 ... p3 side by side, without the interior check */
+    private void doIterations4(double[] x, double[] y, int[] result, int p0, int p1, int p2, int p3) {
+        double maxLength = spec.getMaxLength();
+        int maxIterations = spec.getMaxIterations();
+        double tolerance = getPeriodicityTolerance();
+        
+        double cX0 = x[p0], cX1 = x[p1], cX2 = x[p2], cX3 = x[p3];
+        double cY0 = y[p0], cY1 = y[p1], cY2 = y[p2], cY3 = y[p3];
+        double zX0 = 0.0D, zX1 = 0.0D, zX2 = 0.0D, zX3 = 0.0D;
+        double zY0 = 0.0D, zY1 = 0.0D, zY2 = 0.0D, zY3 = 0.0D;
+        double sX0 = 0.0D, sX1 = 0.0D, sX2 = 0.0D, sX3 = 0.0D;
+        double sY0 = 0.0D, sY1 = 0.0D, sY2 = 0.0D, sY3 = 0.0D;
+        double tmp;
+        
+        // 0 as long as the point is iterated; a finished point is iterated further, but its result is kept
+        int r0 = 0, r1 = 0, r2 = 0, r3 = 0;
+        int i = 0, saveAt = 2;
+        
+        while (r0 == 0 || r1 == 0 || r2 == 0 || r3 == 0) {
+            i++;
+            tmp = zX0; zX0 = zX0*zX0 - zY0*zY0 + cX0; zY0 = 2*tmp*zY0 + cY0;
+            tmp = zX1; zX1 = zX1*zX1 - zY1*zY1 + cX1; zY1 = 2*tmp*zY1 + cY1;
+            tmp = zX2; zX2 = zX2*zX2 - zY2*zY2 + cX2; zY2 = 2*tmp*zY2 + cY2;
+            tmp = zX3; zX3 = zX3*zX3 - zY3*zY3 + cX3; zY3 = 2*tmp*zY3 + cY3;
+            
+            if (r0 == 0) {
+                r0 = laneResult(zX0, zY0, sX0, sY0, i, tolerance, maxLength, maxIterations);
+            }
+            if (r1 == 0) {
+                r1 = laneResult(zX1, zY1, sX1, sY1, i, tolerance, maxLength, maxIterations);
+            }
+            if (r2 == 0) {
+                r2 = laneResult(zX2, zY2, sX2, sY2, i, tolerance, maxLength, maxIterations);
+            }
+            if (r3 == 0) {
+                r3 = laneResult(zX3, zY3, sX3, sY3, i, tolerance, maxLength, maxIterations);
+            }
+            
+            if (i == saveAt) {
+                sX0 = zX0; sY0 = zY0; sX1 = zX1; sY1 = zY1;
+                sX2 = zX2; sY2 = zY2; sX3 = zX3; sY3 = zY3;
+                saveAt *= 2;
+            }
+        }
+        
+        result[p0] = r0;
+        result[p1] = r1;
+        result[p2] = r2;
+        result[p3] = r3;
+    }
+    
+    protected int doIteration(DoubleDouble x, DoubleDouble y) {
+        
+        // the same as doIteration(double, double), without the interior and periodicity checks:
+        // they compare doubles, which cannot resolve a fraction of a pixel at this depth
+        DoubleDouble tmpX = new DoubleDouble(), tmpY = new DoubleDouble();
+        DoubleDouble tmpX2 = new DoubleDouble(), tmpY2 = new DoubleDouble();
+        int i = 0;
+        
+        // local copies, so that they can stay in registers during the loop
+        double maxLength = spec.getMaxLength();
+        int maxIterations = spec.getMaxIterations();
+        
+        do {
+            i++;
+            tmpX2.set(tmpX).sqr();
+            tmpY2.set(tmpY).sqr();
+            tmpY.mul(tmpX).mul(2.0D).add(y);
+            tmpX.set(tmpX2).sub(tmpY2).add(x);
+        } while (((tmpX.hi*tmpX.hi + tmpY.hi*tmpY.hi) <= maxLength) && (i < maxIterations));
+        
+        return i;
+    }
+    
+    /**
+     * iterate the point (reference point + dc) as the delta d[n] to the reference orbit Z[n]:
+     * d[n+1] := 2 Z[n] d[n] + d[n]^2 + dc. When z = Z + d gets smaller than d itself, or the reference
+     * orbit has ended, the delta is rebased onto the start of the reference orbit (d := z, n := 0),
+     * which keeps it from losing its precision (glitches).
+     */
+    private int doPerturbation(double dcX, double dcY) {
+        double[] refX = reference.getOrbitX();
+        double[] refY = reference.getOrbitY();
+        int last = reference.getLength() - 1;
+        double maxLength = spec.getMaxLength();
+        int maxIterations = spec.getMaxIterations();
+        
+        double dX = 0.0D, dY = 0.0D, dX_old;
+        double zX, zY, zLength;
+        int n = 0, i = 0;
+        
+        do {
+            i++;
+            dX_old = dX;
+            dX = 2*(refX[n]*dX - refY[n]*dY) + dX*dX - dY*dY + dcX;
+            dY = 2*(refX[n]*dY + refY[n]*dX_old) + 2*dX_old*dY + dcY;
+            n++;
+            
+            zX = refX[n] + dX;
+            zY = refY[n] + dY;
+            zLength = zX*zX + zY*zY;
+            
+            if (n == last || zLength < dX*dX + dY*dY) {
+                dX = zX;
+                dY = zY;
+                n = 0;
+            }
+        } while ((zLength <= maxLength) && (i < maxIterations));
+        
+        return i;
+    }
+    
+    /** the loop of doIteration(double, double), which only looks for a cycle before the point escapes */
+    protected int findCycle(double x, double y, double tolerance) {
+        double tmpX = 0.0D, tmpY = 0.0D, tmpX_old = 0.0D;
+        double savedX = tmpX, savedY = tmpY;
+        double maxLength = spec.getMaxLength();
+        int maxIterations = spec.getMaxIterations();
+        int saveAt = 2;
+        
+        for (int i = 1; i <= maxIterations; i++) {
+            tmpX_old = tmpX;
+            tmpX = tmpX*tmpX - tmpY*tmpY + x;
+            tmpY = 2*tmpX_old*tmpY + y;
+            
+            if (Math.abs(tmpX - savedX) < tolerance && Math.abs(tmpY - savedY) < tolerance) {
+                return i;
+            }
+            if (!((tmpX*tmpX + tmpY*tmpY) <= maxLength)) {
+                return 0;
+            }
+            if (i == saveAt) {
+                savedX = tmpX; savedY = tmpY;
+                saveAt *= 2;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * closed-form test whether c = x + iy lies in the main cardioid or in the period-2 bulb
+     * (the circle with radius 1/4 around -1) of the Mandelbrot set
+     */
+    static boolean isInMainCardioidOrBulb(double x, double y) {
+        double xQuarter = x - 0.25D;
+        double y2 = y*y;
+        double q = xQuarter*xQuarter + y2;
+        
+        if (q*(q + xQuarter) <= 0.25D*y2) {
+            return true;
+        }
+        
+        return (x + 1.0D)*(x + 1.0D) + y2 <= 0.0625D;
+    }
+    
 }
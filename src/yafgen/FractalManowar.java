@@ -35,8 +35,7 @@ package yafgen;
 public class FractalManowar extends FractalRasterIteration {
     
     /** Creates a new instance of FractalManowar */
-    public FractalManowar(YaFGenMainFrame myFrame, FractalParameters myFPars) {
-        super(myFrame, myFPars);
+    public FractalManowar() {
     }
     
     protected int doIteration(double x, double y) {
@@ -44,17 +43,50 @@ public class FractalManowar extends FractalRasterIteration {
         double tmpX = x, tmpY = y, tmpX_old = x;
         int i = 0;
         
+        // local copies, so that they can stay in registers during the loop
+        double xFix = spec.getXFix(), yFix = spec.getYFix();
+        double maxLength = spec.getMaxLength();
+        int maxIterations = spec.getMaxIterations();
+        
         // z[n+1] := z[n]? + c; z[0] := fix
         do {
             i++;
             tmpX_old = tmpX;
-            tmpX = tmpX*tmpX/tmpY/10.0 - tmpY*tmpX*tmpX/5.0 + fPars.getXFix();
-            tmpY = 2.1*tmpX_old*tmpY - tmpY/tmpX_old*0.8 - 0.98*tmpX_old + fPars.getYFix();
+            tmpX = tmpX*tmpX/tmpY/10.0 - tmpY*tmpX*tmpX/5.0 + xFix;
+            tmpY = 2.1*tmpX_old*tmpY - tmpY/tmpX_old*0.8 - 0.98*tmpX_old + yFix;
             // tmpX = tmpX*(tmpX+tmpY/3.0) - tmpY*tmpY + fPars.xFix;
             // tmpY = 2*tmpX_old*tmpY + tmpX_old/20.0 + fPars.yFix;
-        } while (((tmpX*tmpX + tmpY*tmpY) <= fPars.getMaxLength()) && (i < fPars.getMaxIterations()));
+        } while (((tmpX*tmpX + tmpY*tmpY) <= maxLength) && (i < maxIterations));
         
         return  i;
     }
     
+    protected int doIteration(DoubleDouble x, DoubleDouble y) {
+        
+        DoubleDouble tmpX = new DoubleDouble(x), tmpY = new DoubleDouble(y), tmpX_old = new DoubleDouble();
+        DoubleDouble term = new DoubleDouble();
+        int i = 0;
+        
+        // local copies, so that they can stay in registers during the loop
+        double xFix = spec.getXFix(), yFix = spec.getYFix();
+        double maxLength = spec.getMaxLength();
+        int maxIterations = spec.getMaxIterations();
+        
+        // the same formula as doIteration(double, double)
+        do {
+            i++;
+            tmpX_old.set(tmpX);
+            // tmpX = tmpX*tmpX/tmpY/10.0 - tmpY*tmpX*tmpX/5.0 + xFix
+            term.set(tmpY).mul(tmpX_old).mul(tmpX_old).div(5.0D);
+            tmpX.mul(tmpX_old).div(tmpY).div(10.0D).sub(term).add(xFix);
+            // tmpY = 2.1*tmpX_old*tmpY - tmpY/tmpX_old*0.8 - 0.98*tmpX_old + yFix
+            term.set(tmpY).div(tmpX_old).mul(0.8D);
+            tmpY.mul(tmpX_old).mul(2.1D).sub(term);
+            term.set(tmpX_old).mul(0.98D);
+            tmpY.sub(term).add(yFix);
+        } while (((tmpX.hi*tmpX.hi + tmpY.hi*tmpY.hi) <= maxLength) && (i < maxIterations));
+        
+        return i;
+    }
+    
 }
@@ -40,15 +40,14 @@ import java.awt.image.*;
 public class FractalNLF extends FractalIterationFunction {
     
     /** Creates a new instance of FractalNLF */
-    public FractalNLF(YaFGenMainFrame myFrame, FractalParameters myFPars) {
-        super(myFrame, myFPars);
+    public FractalNLF() {
     }
     
     protected void doIteration() {
         
         // x[n] = abs(x[n-1]) -b*y[n-1] + a;  n>0
         // y[n] = x[n-1]
-        xNew = Math.abs(xIter) - fPars.getBFix()*yIter + fPars.getAFix();
+        xNew = Math.abs(xIter) - spec.getBFix()*yIter + spec.getAFix();
         yNew = xIter;
                 
     }
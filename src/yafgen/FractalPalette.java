@@ -0,0 +1,154 @@
+/*
+ * FractalPalette.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+import java.awt.*;
+
+/**
+ * FractalPalette holds the color of every iteration count of one render, packed as RGB ints.
+ * It is built when the render starts, so that coloring a pixel is a single array read
+ * instead of a color conversion and a new Color object per pixel.
+ *
+ * Color sets 1 to 4 are the original HSB color sets; COLOR_SET_GRADIENT interpolates between
+ * the colors of a user defined gradient, which repeats every getGradientLength() iterations.
+ */
+public final class FractalPalette {
+    
+    /** the color set that uses the gradient of FractalParameters instead of an HSB formula */
+    public static final int COLOR_SET_GRADIENT = 5;
+    
+    /** the gradient that is used when the user defined one cannot be read */
+    public static final String DEFAULT_GRADIENT = "000764,206BCB,EDFFFF,FFAA00,000200";
+    
+    /** the color of every iteration count from 0 to maxIterations */
+    private final int[] colors;
+    
+    /** Creates a new instance of FractalPalette for the colors of the given render */
+    public FractalPalette(FractalRenderSpec spec) {
+        this(spec.getSelectedColorSet(), spec.getGradient(), spec.getGradientLength(), spec.getMaxIterations());
+    }
+    
+    /** Creates a new instance of FractalPalette for the color set, with the iteration counts 0 to maxIterations */
+    public FractalPalette(int colorSet, String gradient, int gradientLength, int maxIterations) {
+        maxIterations = Math.max(maxIterations, 0);
+        colors = new int[maxIterations + 1];
+        
+        if (colorSet == COLOR_SET_GRADIENT) {
+            int[] stops;
+            try {
+                stops = parseGradient(gradient);
+            } catch (NumberFormatException nFE) {
+                System.out.println("FractalPalette: cannot read the gradient '" + gradient + "', using the default one");
+                stops = parseGradient(DEFAULT_GRADIENT);
+            }
+            int length = Math.max(gradientLength, 1);
+            for (int i = 0; i < maxIterations; i++) {
+                colors[i] = interpolate(stops, (float)(i % length) / (float)length);
+            }
+            colors[maxIterations] = Color.BLACK.getRGB();
+        } else {
+            for (int i = 0; i <= maxIterations; i++) {
+                colors[i] = calcColor(colorSet, i, maxIterations);
+            }
+        }
+    }
+    
+    /** the color of the iteration count, packed as RGB int */
+    public int getRGB(int iterations) {
+        return colors[iterations];
+    }
+    
+    /** the color of the iteration count as Color object, e.g. for Graphics.setColor() */
+    public Color getColor(int iterations) {
+        return new Color(colors[iterations]);
+    }
+    
+    /**
+     * the color of an iteration count in one of the HSB color sets, packed as RGB int;
+     * this is the formula that the palette is built from
+     */
+    public static int calcColor(int colorSet, int iterations, int maxIterations) {
+        if (iterations == maxIterations) {
+            return Color.BLACK.getRGB();
+        }
+        
+        // find out color value by some weird algo
+        float floatIterations = (float)iterations/(float)maxIterations;
+        switch (colorSet) {
+            case 2:
+                return Color.getHSBColor( floatIterations + 0.8F, 1.0F, 1.0F ).getRGB();
+            case 3:
+                return Color.getHSBColor( floatIterations *5.2F, 0.4F, 1.0F ).getRGB();
+            case 4:
+                return Color.getHSBColor( floatIterations *10.0F, 0.8F, 1.0F ).getRGB();
+            default:
+                return Color.getHSBColor( floatIterations, 1.0F, 1.0F ).getRGB();
+        }
+    }
+    
+    /**
+     * read a gradient, i.e. a list of at least two colors as hexadecimal RRGGBB values that are
+     * separated by commas; a NumberFormatException is thrown if that is not possible
+     */
+    public static int[] parseGradient(String gradient) throws NumberFormatException {
+        if (gradient == null) {
+            throw new NumberFormatException("no gradient");
+        }
+        String[] values = gradient.split(",");
+        if (values.length < 2) {
+            throw new NumberFormatException("a gradient needs at least two colors");
+        }
+        
+        int[] stops = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i].trim();
+            if (value.startsWith("#")) {
+                value = value.substring(1);
+            }
+            if (value.length() != 6) {
+                throw new NumberFormatException("not a color: " + values[i]);
+            }
+            stops[i] = Integer.parseInt(value, 16);
+        }
+        return stops;
+    }
+    
+    /** the color at position (0 <= position < 1) of the cyclic gradient; the last color blends back into the first */
+    private static int interpolate(int[] stops, float position) {
+        float scaled = position * stops.length;
+        int index = (int)scaled;
+        float fraction = scaled - index;
+        int from = stops[index];
+        int to = stops[(index + 1) % stops.length];
+        
+        int red   = Math.round(((from >> 16) & 0xFF) * (1.0F - fraction) + ((to >> 16) & 0xFF) * fraction);
+        int green = Math.round(((from >> 8)  & 0xFF) * (1.0F - fraction) + ((to >> 8)  & 0xFF) * fraction);
+        int blue  = Math.round(( from        & 0xFF) * (1.0F - fraction) + ( to        & 0xFF) * fraction);
+        return new Color(red, green, blue).getRGB();
+    }
+}
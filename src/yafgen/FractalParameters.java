@@ -36,6 +36,8 @@
 
 package yafgen;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
 import java.util.Vector;
 
 
@@ -54,12 +56,26 @@ public class FractalParameters implements java.io.Serializable {
     private double xMax;
     private double yMin;
     private double yMax;
+    // the view window with all digits of a deep zoom, as decimal strings; they are only used while
+    // they still round to the double values above, so the doubles may be set on their own
+    private String xMinExact;
+    private String xMaxExact;
+    private String yMinExact;
+    private String yMaxExact;
     private double xFix;
     private double yFix;
     private double maxLength;
     private int maxIterations;
     
-    // NLF and Jumper
+    // Mandelbrot: skip the iteration of points in the main cardioid and the period-2 bulb
+    private boolean interiorCheck = true;
+    // Mandelbrot and Julia: stop iterating when the orbit returns closer than this to an earlier value; 0 = off
+    private double periodicityTolerance = 1.0E-12;
+    // Mandelbrot: zooms that are too deep for double are iterated as deltas to a reference orbit (perturbation);
+    // if false, double-double is used down to about 1e-28 (slower, but without a reference orbit)
+    private boolean perturbation = true;
+    
+    // NLF and Jumper; count and infiniteLoop are also the sampled points of the Buddhabrot
     private double xStart;
     private double yStart;
     private double aFix;
@@ -72,6 +88,7 @@ public class FractalParameters implements java.io.Serializable {
     private int    sleep;
     private long   count;
     private boolean infiniteLoop;
+    // not read any more, the stop button cancels the FractalRenderer; kept for the saved parameter files
     private boolean infiniteLoopInterrupted;
     
     // IFS
@@ -100,19 +117,58 @@ public class FractalParameters implements java.io.Serializable {
         IFS     = 3
         NLF     = 4
         JUMPER  = 5
+        MANOWAR = 6
+        BUDDHABROT = 7
+        ANTI-BUDDHABROT = 8
      */
     private int currentFractalType;
     
     /** the selected color set to be used when drawing a fractal */
     private int selectedColorSet = 1;
     
+    /** the user defined color gradient (color set 5): colors as hexadecimal RRGGBB values, separated by commas */
+    private String gradient = FractalPalette.DEFAULT_GRADIENT;
+    /** the number of iterations after which the gradient starts again */
+    private int gradientLength = 64;
+    
+    /** Render Mode of the raster fractals (Mandelbrot, Julia, Manowar), which is a number with the following meaning:
+        PROGRESSIVE REFINEMENT  = 1
+        RECTANGLE SUBDIVISION   = 2
+        BOUNDARY TRACING        = 3
+     */
+    private int renderMode = 1;
+    
+    /** progressive refinement: a new pixel gets the value of the four corners of its block in the previous pass
+        without being iterated, when the corners agree (solid guessing). It is a draft option: a few pixels
+        of thin details get a wrong value, so it is off by default */
+    private boolean solidGuessing = false;
+    
+    /** antialiasing of the raster fractals: a pixel whose iteration count differs from one of its neighbours
+        gets the average color of antialiasing x antialiasing samples; 1 = no antialiasing */
+    private int antialiasing = 1;
+    /** the extra samples of the antialiasing, in percent of the pixels of the image; when the edges need more,
+        those with the highest contrast are antialiased */
+    private int antialiasingBudget = 25;
+    
+    /** distance estimation of Mandelbrot and Julia: the distance of a point outside to the set, from the derivative of its orbit
+        NONE                    = 0
+        BOUNDARY                = 1 (points closer to the set than half a pixel get its color, so thin filaments stay visible)
+        DISTANCE COLORS         = 2 (like 1, and the other points are colored by their distance instead of their iteration count)
+     */
+    private int distanceEstimation = 0;
+    
+    /** memory budget of the tile cache of the raster fractals, in megabytes; 0 = no cache */
+    private int tileCacheSize = 64;
+    /** size cap of the tile cache on the disk (see DiskTileCache), in megabytes; 0 = no disk cache */
+    private int diskCacheSize = 256;
+    
     
     /** Creates a new instance of FractalParameters */
     public FractalParameters() {
         //setDefaultParameters(null);
     }
     
-    public void setDefaultParameters(FractalImage myFImage) {
+    public void setDefaultParameters(FractalRenderer myFImage) {
         a = new Vector<Double>(6);
         b = new Vector<Double>(6);
         c = new Vector<Double>(6);
@@ -169,6 +225,14 @@ public class FractalParameters implements java.io.Serializable {
             setYMax(2.0);
         }
         
+        if (myFImage instanceof FractalBuddhabrot) {
+            // the orbits reach a little further than the Mandelbrot set itself
+            setXMin(-2.5);
+            setXMax(1.5);
+            setYMin(-1.5);
+            setYMax(1.5);
+        }
+        
         if (myFImage instanceof FractalNLF) {
             setXMin(-5);
             setXMax(9);
@@ -333,6 +397,147 @@ public class FractalParameters implements java.io.Serializable {
         this.yMax = yMax;
     }
     
+    public String getXMinExact() {
+        return xMinExact;
+    }
+    
+    public void setXMinExact(String xMinExact) {
+        this.xMinExact = xMinExact;
+    }
+    
+    public String getXMaxExact() {
+        return xMaxExact;
+    }
+    
+    public void setXMaxExact(String xMaxExact) {
+        this.xMaxExact = xMaxExact;
+    }
+    
+    public String getYMinExact() {
+        return yMinExact;
+    }
+    
+    public void setYMinExact(String yMinExact) {
+        this.yMinExact = yMinExact;
+    }
+    
+    public String getYMaxExact() {
+        return yMaxExact;
+    }
+    
+    public void setYMaxExact(String yMaxExact) {
+        this.yMaxExact = yMaxExact;
+    }
+    
+    /** the view window with all known digits (not named get..., so that XMLEncoder ignores it) */
+    public BigDecimal preciseXMin() {
+        return precise(xMinExact, xMin);
+    }
+    
+    public BigDecimal preciseXMax() {
+        return precise(xMaxExact, xMax);
+    }
+    
+    public BigDecimal preciseYMin() {
+        return precise(yMinExact, yMin);
+    }
+    
+    public BigDecimal preciseYMax() {
+        return precise(yMaxExact, yMax);
+    }
+    
+    /** the exact value if it still belongs to the double value, otherwise the shortest decimal of the double value */
+    private static BigDecimal precise(String exact, double value) {
+        if (exact != null) {
+            BigDecimal exactValue = new BigDecimal(exact);
+            if (exactValue.doubleValue() == value) {
+                return exactValue;
+            }
+        }
+        return new BigDecimal(Double.toString(value));
+    }
+    
+    /** set the view window with all digits; the double values get the rounded borders */
+    public void setPreciseWindow(BigDecimal xMin, BigDecimal xMax, BigDecimal yMin, BigDecimal yMax) {
+        setXMin(xMin.doubleValue());
+        setXMax(xMax.doubleValue());
+        setYMin(yMin.doubleValue());
+        setYMax(yMax.doubleValue());
+        setXMinExact(xMin.stripTrailingZeros().toString());
+        setXMaxExact(xMax.stripTrailingZeros().toString());
+        setYMinExact(yMin.stripTrailingZeros().toString());
+        setYMaxExact(yMax.stripTrailingZeros().toString());
+    }
+    
+    /**
+     * the precision for calculations on coordinates that must still tell apart two points with the
+     * distance 'step': 20 digits, plus one for every decimal place of the step below 1
+     */
+    public static MathContext precisionFor(BigDecimal step) {
+        // number of digits in front of the decimal point; negative for numbers below 0.1
+        int exponent = step.precision() - step.scale();
+        return new MathContext(Math.max(20, 20 - exponent));
+    }
+    
+    /**
+     * zoom into the rectangle from (x1,y1) to (x2,y2), given in pixels, or zoom out so that the
+     * current view fits into that rectangle. The calculation is done with BigDecimal, so that deep
+     * zooms keep the digits a double cannot hold.
+     */
+    public void zoom(int x1, int y1, int x2, int y2, boolean zoomIn) {
+        if (x2 <= x1 || y2 <= y1) {
+            // nothing to zoom into
+            return;
+        }
+        
+        BigDecimal xMinOld = preciseXMin(), xMaxOld = preciseXMax();
+        BigDecimal yMinOld = preciseYMin(), yMaxOld = preciseYMax();
+        BigDecimal width = xMaxOld.subtract(xMinOld);
+        BigDecimal height = yMaxOld.subtract(yMinOld);
+        
+        if (zoomIn) {
+            MathContext mc = precisionFor(width.divide(BigDecimal.valueOf(sizeX), MathContext.DECIMAL64).abs()
+                    .min(height.divide(BigDecimal.valueOf(sizeY), MathContext.DECIMAL64).abs()));
+            BigDecimal xStep = width.divide(BigDecimal.valueOf(sizeX), mc);
+            BigDecimal yStep = height.divide(BigDecimal.valueOf(sizeY), mc);
+            
+            setPreciseWindow(xMinOld.add(xStep.multiply(BigDecimal.valueOf(x1)), mc),
+                    xMinOld.add(xStep.multiply(BigDecimal.valueOf(x2)), mc),
+                    yMaxOld.subtract(yStep.multiply(BigDecimal.valueOf(y2)), mc),
+                    yMaxOld.subtract(yStep.multiply(BigDecimal.valueOf(y1)), mc));
+        } else {
+            // the old view is now (x2-x1) pixels wide, so every pixel is width/(x2-x1)
+            MathContext mc = precisionFor(width.divide(BigDecimal.valueOf(sizeX), MathContext.DECIMAL64).abs()
+                    .min(height.divide(BigDecimal.valueOf(sizeY), MathContext.DECIMAL64).abs()));
+            BigDecimal xStep = width.divide(BigDecimal.valueOf(x2 - x1), mc);
+            BigDecimal yStep = height.divide(BigDecimal.valueOf(y2 - y1), mc);
+            
+            setPreciseWindow(xMinOld.subtract(xStep.multiply(BigDecimal.valueOf(x1)), mc),
+                    xMaxOld.add(xStep.multiply(BigDecimal.valueOf(sizeX - x2)), mc),
+                    yMinOld.subtract(yStep.multiply(BigDecimal.valueOf(sizeY - y2)), mc),
+                    yMaxOld.add(yStep.multiply(BigDecimal.valueOf(y1)), mc));
+        }
+    }
+    
+    /**
+     * move the view window by whole pixels, so that the pixel (dx, dy) of the current view becomes
+     * the upper left corner; the pixels of both views lie on the same grid, so they can be reused
+     */
+    public void pan(int dx, int dy) {
+        BigDecimal xMinOld = preciseXMin(), xMaxOld = preciseXMax();
+        BigDecimal yMinOld = preciseYMin(), yMaxOld = preciseYMax();
+        BigDecimal width = xMaxOld.subtract(xMinOld);
+        BigDecimal height = yMaxOld.subtract(yMinOld);
+        
+        // the shift is a multiple of the pixel size, calculated from the same width as in the render
+        MathContext mc = precisionFor(width.divide(BigDecimal.valueOf(sizeX), MathContext.DECIMAL64).abs()
+                .min(height.divide(BigDecimal.valueOf(sizeY), MathContext.DECIMAL64).abs()));
+        BigDecimal xShift = width.multiply(BigDecimal.valueOf(dx)).divide(BigDecimal.valueOf(sizeX), mc);
+        BigDecimal yShift = height.multiply(BigDecimal.valueOf(dy)).divide(BigDecimal.valueOf(sizeY), mc);
+        
+        setPreciseWindow(xMinOld.add(xShift), xMaxOld.add(xShift), yMinOld.subtract(yShift), yMaxOld.subtract(yShift));
+    }
+    
     public double getXFix() {
         return xFix;
     }
@@ -365,6 +570,30 @@ public class FractalParameters implements java.io.Serializable {
         this.maxIterations = maxIterations;
     }
     
+    public boolean isInteriorCheck() {
+        return interiorCheck;
+    }
+    
+    public void setInteriorCheck(boolean interiorCheck) {
+        this.interiorCheck = interiorCheck;
+    }
+    
+    public double getPeriodicityTolerance() {
+        return periodicityTolerance;
+    }
+    
+    public void setPeriodicityTolerance(double periodicityTolerance) {
+        this.periodicityTolerance = periodicityTolerance;
+    }
+    
+    public boolean isPerturbation() {
+        return perturbation;
+    }
+    
+    public void setPerturbation(boolean perturbation) {
+        this.perturbation = perturbation;
+    }
+    
     public double getXStart() {
         return xStart;
     }
@@ -542,5 +771,77 @@ public class FractalParameters implements java.io.Serializable {
     public void setSelectedColorSet(int selectedColorSet) {
         this.selectedColorSet = selectedColorSet;
     }
+
+    public String getGradient() {
+        return gradient;
+    }
+
+    public void setGradient(String gradient) {
+        this.gradient = gradient;
+    }
+
+    public int getGradientLength() {
+        return gradientLength;
+    }
+
+    public void setGradientLength(int gradientLength) {
+        this.gradientLength = gradientLength;
+    }
+
+    public int getRenderMode() {
+        return renderMode;
+    }
+
+    public void setRenderMode(int renderMode) {
+        this.renderMode = renderMode;
+    }
+
+    public boolean isSolidGuessing() {
+        return solidGuessing;
+    }
+
+    public void setSolidGuessing(boolean solidGuessing) {
+        this.solidGuessing = solidGuessing;
+    }
+
+    public int getAntialiasing() {
+        return antialiasing;
+    }
+
+    public void setAntialiasing(int antialiasing) {
+        this.antialiasing = antialiasing;
+    }
+
+    public int getAntialiasingBudget() {
+        return antialiasingBudget;
+    }
+
+    public void setAntialiasingBudget(int antialiasingBudget) {
+        this.antialiasingBudget = antialiasingBudget;
+    }
+    
+    public int getDistanceEstimation() {
+        return distanceEstimation;
+    }
+    
+    public void setDistanceEstimation(int distanceEstimation) {
+        this.distanceEstimation = distanceEstimation;
+    }
+
+    public int getTileCacheSize() {
+        return tileCacheSize;
+    }
+
+    public void setTileCacheSize(int tileCacheSize) {
+        this.tileCacheSize = tileCacheSize;
+    }
+
+    public int getDiskCacheSize() {
+        return diskCacheSize;
+    }
+
+    public void setDiskCacheSize(int diskCacheSize) {
+        this.diskCacheSize = diskCacheSize;
+    }
     
 }
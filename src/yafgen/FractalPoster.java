@@ -0,0 +1,156 @@
+/*
+ * FractalPoster.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * FractalPoster renders a raster fractal that is too large for the memory, e.g. a print poster
+ * of 40000x30000 pixels, and streams it into a PNG file. The image is split into strips of whole
+ * rows; every strip is rendered by the render pool like a small image of its own, and is compressed
+ * and written by PngStripWriter while the next strip is rendered. At most two strips are in memory
+ * at a time, so the memory depends on the width of the image and not on its height; the image may
+ * have more than 2^31 pixels.
+ *
+ * The strips are calculated on the pixel grid of the whole image (see FractalRenderSpec.strip()),
+ * so every pixel is iterated at the same point as in a render of the whole image at once. With
+ * antialiasing, every strip is rendered with one more row above and below, which are not written;
+ * so the edges at the seams are found as in the whole image. Only the antialiasing budget is spent
+ * by every strip on its own: when it does not reach all edges, the poster may choose other ones.
+ */
+public class FractalPoster {
+    
+    /** the pixels of one strip; it needs 4 bytes per pixel for the image and 4 for the iteration counts */
+    private static final int STRIP_PIXELS = 1 << 22;
+    
+    private final FractalRasterIteration renderer;
+    private final FractalRenderSpec spec;
+    private final int stripRows;
+    
+    /** Creates a new instance of FractalPoster for the image of spec, calculated by renderer */
+    public FractalPoster(FractalRasterIteration renderer, FractalRenderSpec spec) {
+        this(renderer, spec, defaultStripRows(spec));
+    }
+    
+    /** Creates a new instance of FractalPoster with strips of the given number of rows */
+    public FractalPoster(FractalRasterIteration renderer, FractalRenderSpec spec, int stripRows) {
+        this.renderer = renderer;
+        this.spec = spec;
+        this.stripRows = Math.max(1, Math.min(stripRows, spec.getSizeY()));
+    }
+    
+    /** whole tiles of the render pool, unless a single row of tiles is already too large */
+    private static int defaultStripRows(FractalRenderSpec spec) {
+        int rows = STRIP_PIXELS / spec.getSizeX();
+        if (rows >= FractalRasterIteration.TILE_SIZE) {
+            rows -= rows % FractalRasterIteration.TILE_SIZE;
+        }
+        return rows;
+    }
+    
+    public int getStripRows() {
+        return stripRows;
+    }
+    
+    public int getStripCount() {
+        return (spec.getSizeY() + stripRows - 1) / stripRows;
+    }
+    
+    /** render the image strip by strip, and write it into the PNG file */
+    public void write(File png) throws IOException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        int sizeY = spec.getSizeY();
+        final int sizeX = spec.getSizeX();
+        // antialiasing looks at the neighbours of a pixel, so it needs the rows next to the seams
+        int margin = (spec.getAntialiasing() > 1) ? 1 : 0;
+        
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(png), 1 << 16);
+        boolean written = false;
+        ExecutorService encoder = Executors.newSingleThreadExecutor();
+        try {
+            final PngStripWriter writer = new PngStripWriter(out, spec.getSizeX(), sizeY);
+            Future<?> pending = null;
+            
+            for (int y0 = 0; y0 < sizeY; y0 += stripRows) {
+                final int rows = Math.min(stripRows, sizeY - y0);
+                int top = Math.max(0, y0 - margin);
+                int bottom = Math.min(sizeY, y0 + rows + margin);
+                final int offset = (y0 - top) * sizeX;
+                BufferedImage strip = renderer.render(spec.strip(top, bottom - top));
+                
+                // render() creates a new image for every strip, so this one stays valid while the next one is rendered
+                final int[] pixels = ((DataBufferInt) strip.getRaster().getDataBuffer()).getData();
+                waitFor(pending);
+                pending = encoder.submit(new Callable<Object>() {
+                    public Object call() throws IOException {
+                        writer.writeRows(pixels, offset, rows);
+                        return null;
+                    }
+                });
+                
+                System.out.println("FractalPoster: strip " + (y0 / stripRows + 1) + " of " + getStripCount() + " after " + (System.currentTimeMillis() - startTime) + " ms");
+            }
+            
+            waitFor(pending);
+            writer.close();
+            written = true;
+        } finally {
+            encoder.shutdownNow();
+            if (!written) {
+                out.close();
+            }
+        }
+    }
+    
+    /** wait until the strip is written, and pass on its error */
+    private static void waitFor(Future<?> pending) throws IOException, InterruptedException {
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get();
+        } catch (ExecutionException eE) {
+            if (eE.getCause() instanceof IOException) {
+                throw (IOException) eE.getCause();
+            }
+            throw new IOException(eE.getCause());
+        }
+    }
+}
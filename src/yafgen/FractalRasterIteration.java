@@ -33,12 +33,21 @@
  *           - Various enhancements, see README
  *
  */
-
 package yafgen;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.*;
 import java.awt.image.*;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *
@@ -46,101 +55,1387 @@ import java.awt.image.*;
  * on the complex plane. The algorithm therefore is based on complex numbers, i.e.
  * real numbers combined with imaginary units.
  * It calculates the image by determining the color value of every pixel in the raster image.
- * For performance reasons, it starts with square tiles that consist of several pixels on the screen,
- * and subsequently shrinks the tiles. By that way, the user is able to see a less detailed image
- * at the first run, which is refined more and more.
+ *
+ * There are three ways (render modes) to do that:
+ *   - progressive refinement: for performance reasons, it starts with square tiles that consist
+ *     of several pixels on the screen, and subsequently shrinks the tiles. By that way, the user
+ *     is able to see a less detailed image at the first run, which is refined more and more.
+ *     As a draft option, the new pixels of a pass inside uniform areas can be guessed from the previous
+ *     one (solid guessing); that misses some thin details.
+ *   - rectangle subdivision (Mariani-Silver): only the border of a rectangle and its middle row and
+ *     column are calculated. If all of them have the same iteration count, the rectangle gets that
+ *     value, otherwise it is split into four smaller rectangles. This relies on the set being connected,
+ *     which is true for Mandelbrot and for the connected Julia sets. The inside of the set is only
+ *     filled when the cycles of the border pixels are found, so the result is that of every pixel.
+ *   - boundary tracing: starting at the border, only the pixels along the contours between two
+ *     iteration counts are calculated. Everything enclosed by a contour is then filled with the
+ *     value of its border, so the number of iterated pixels grows with the perimeter of the bands
+ *     instead of their area. It relies on connectedness as well, and fills the inside of the set
+ *     only under the same condition as rectangle subdivision.
+ *
+ * In all modes the image is split into square areas of TILE_SIZE pixels, which are
+ * calculated in parallel by the worker threads of the render pool.
+ *
+ * Antialiasing is adaptive: after the image is complete, only the pixels on an edge, i.e. those
+ * whose iteration count differs from one of their neighbours, are sampled again at several points
+ * inside the pixel, and get the average color of the samples.
+ *
+ * With distance estimation (see FractalParameters), a subclass that supports it also calculates the
+ * distance of every pixel to the set. Points closer than BOUNDARY_DISTANCE pixels get the value of the
+ * set, so filaments thinner than a pixel are not lost between the samples; with distance colors, the
+ * other points get a value from their distance instead of their iteration count. The distances also
+ * tell the antialiasing which edges lie at the boundary of the set: pixels that are known to be farther
+ * away are left out, so the samples go where they make a difference. The shortcuts that fill areas from
+ * their border do not rely on pixels right next to the set, where a filament may pass between two of them.
+ *
+ * The pixels are iterated with double precision. When the zoom is so deep that neighbouring
+ * pixels cannot be told apart with doubles any more, double-double arithmetic (about 106 bits)
+ * is used instead.
  *
  * It is an abstract class, so that the calculation/iteration itself is implemented
  * in a subclass.
  *
  */
-public abstract class FractalRasterIteration extends FractalImage {
-    
-    private double xStep, yStep;
-    private int loopX, loopY;
-    private YaFGenMainFrame myFrame;
-    
+public abstract class FractalRasterIteration extends FractalRenderer {
+
+    /** edge length of the areas that are calculated by one worker; must be a multiple of 16 */
+    protected static final int TILE_SIZE = 64;
+
+    /** rectangles that are smaller than this are not subdivided any more, but calculated pixel by pixel */
+    private static final int MIN_SUBDIVISION_SIZE = 6;
+
+    /** a precision is used as long as one pixel is at least this many of its ulps of the coordinates wide */
+    protected static final double MIN_ULPS_PER_PIXEL = 256.0D;
+
+    /** the precision of the pixel iteration */
+    protected static final int PRECISION_DOUBLE = 1;
+    protected static final int PRECISION_DOUBLE_DOUBLE = 2;
+    /** even double-double cannot tell the pixels apart; double-double is used anyway */
+    protected static final int PRECISION_EXCEEDED = 3;
+
+    /**
+     * the view window of the current render; fixed when doWork() starts. The coordinates are those of the
+     * whole image (see FractalRenderSpec.getWholeImage()): row py of a strip is row rowOffset + py there
+     */
+    private int sizeX, sizeY, rowOffset;
+    private double xMin, yMax, xStep, yStep;
+    private int precision;
+    private double periodicityTolerance;
+    private DoubleDouble xMinDD, yMaxDD;
+
+    /**
+     * the periodicity check may not be coarser than this (in pixels): an orbit that returns closer than the
+     * tolerance is taken as periodic, so with small pixels, a slowly escaping point would be taken for the set
+     */
+    private static final double PERIODICITY_TOLERANCE_PER_PIXEL = 1.0E-3D;
+
+    /** a pixel of the previous image is reused if it lies closer than this (in pixels) to a pixel of this one */
+    private static final double REUSE_TOLERANCE = 1.0E-6D;
+
+    /** pixels that show a resampled preview of the previous image; the coarse passes do not draw over them */
+    private boolean[] previewed;
+
+    /** tiles of earlier renders, shared by all raster fractals */
+    protected static final TileCache tileCache = new TileCache(0);
+
+    /** tiles of earlier sessions; opened by the first render that uses it */
+    private static DiskTileCache diskCache;
+    private static int diskCacheSize = 0;
+
+    /** progressive refinement: the number of pixels that were guessed instead of iterated */
+    private final AtomicLong guessedPixels = new AtomicLong();
+
+    /** rows of the image that are antialiased by one worker */
+    private static final int ANTIALIAS_ROWS = 8;
+
+    /**
+     * the contrast (see contrast()) from which on a pixel is antialiased, even if the budget would allow
+     * more; below it, neighbouring iteration counts lie in a smooth color band, which needs no antialiasing
+     */
+    private static final int EDGE_CONTRAST = 32;
+    private static final int MAX_CONTRAST = 3 * 255;
+
+    /**
+     * the antialiased pixels: the x of every such pixel of a row, and the iteration counts of its
+     * samples (antialiasing^2 per pixel), so that recolor() can average them again; null if none
+     */
+    private int[][] antialiasedX;
+    private int[][] antialiasSamples;
+    private int antialiasing;
+    private int antialiasThreshold;
+    private final AtomicLong antialiasedPixels = new AtomicLong();
+
+    /** distance estimation: points closer to the set than this (in pixels) get the value of the set */
+    private static final double BOUNDARY_DISTANCE = 0.5D;
+
+    /** distance colors: the number of values per doubling of the distance */
+    private static final double DISTANCE_LEVELS_PER_OCTAVE = 8.0D;
+
+    /**
+     * a pixel that is farther from the set than this (in pixels) is not antialiased: its edge is one between
+     * two iteration bands, which are smooth. The estimate is a lower bound (the true distance is at most four
+     * times as large), so such a pixel is never closer
+     */
+    private static final float ANTIALIAS_DISTANCE = 2.0F;
+
+    /**
+     * a filament of the set may pass between a pixel that is closer to the set than this (in pixels) and its
+     * neighbour without being hit by either; the shortcuts that fill areas from their border (subdivision,
+     * boundary tracing, solid guessing) therefore do not rely on such pixels
+     */
+    private static final float NEAR_DISTANCE = 1.0F;
+
+    /** a point is iterated until |z|^2 exceeds this for its distance estimate, which gets more exact the larger z is */
+    protected static final double DISTANCE_BAILOUT = 1.0E6D;
+
+    /** the distance of every pixel to the set, in pixels (0 inside); NaN if it is not known. null without distance estimation */
+    private float[] distances;
+    private double pixelSize;
+
     /** Creates a new instance of FractalRasterIteration */
-    public FractalRasterIteration(YaFGenMainFrame myFrame, FractalParameters myFPars) {
-        super(myFrame, myFPars);
-        this.myFrame = myFrame;
+    public FractalRasterIteration() {
     }
-    
-    public Object doWork() {
-        
+
+    protected BufferedImage doWork() {
+
         System.out.println( this.getClass() + ": doWork() started");
-        myFrame.setCalculatingLabel( true );
-        
-        Color c = Color.black;
-        finishedDrawing = false;
-        
-        int oldLoopTiles = 100000;
-        
+        long startTime = System.currentTimeMillis();
+
+        // calculate the value by which we need to increment the x/y numbers for every pixel; a strip
+        // of a poster takes them from the whole image, so that its rows are the same as there
+        FractalRenderSpec grid = spec.getWholeImage();
+        sizeX = spec.getSizeX();
+        sizeY = spec.getSizeY();
+        rowOffset = spec.getRowOffset();
+        xMin = grid.getXMin();
+        yMax = grid.getYMax();
+        xStep = (grid.getXMax() - grid.getXMin())/(double)grid.getSizeX();
+        yStep = (grid.getYMax() - grid.getYMin())/(double)grid.getSizeY();
+
+        iterations = new int[sizeX * sizeY];
+        Arrays.fill(iterations, -1);
+        antialiasedX = null;
+        antialiasSamples = null;
+
+        choosePrecision();
+        periodicityTolerance = Math.min(spec.getPeriodicityTolerance(),
+                PERIODICITY_TOLERANCE_PER_PIXEL * Math.min(Math.abs(xStep), Math.abs(yStep)));
+        prepareDistances();
+        prepareIteration();
+        loadCachedTiles();
+        reusePixels();
+
         try {
-            
-            // start with tiles of the size 16x16
-            for( int loopTiles = 16; loopTiles > 0; loopTiles/=2 ){
-                double x = fPars.getXMin();
-                double y = fPars.getYMax();
-                // calculate the value by which we need to increment the x/y numbers in every loop
-                xStep = (fPars.getXMax() - fPars.getXMin())/(double)fPars.getSizeX() * loopTiles;
-                yStep = (fPars.getYMax() - fPars.getYMin())/(double)fPars.getSizeY() * loopTiles;
-                
-                // loop through the x axis
-                for (loopX = 0; loopX < fPars.getSizeX(); loopX+=loopTiles) {
-                    
-                    y = fPars.getYMax();
-                    
-                    // loop through the y axis
-                    for (loopY = 0; loopY < fPars.getSizeY(); loopY+=loopTiles) {
-                        
-                        // if we have already calculated this pixel, then skip
-                        if( ((loopY % oldLoopTiles) == 0) && ((loopX % oldLoopTiles)==0)) {
-                            y-=yStep;
-                            continue;
-                        }
-                        
-                        // perform the iteration; note that this is an abstract method
-                        int iterations = doIteration(x,y);
-                        c = calcNewColorIterations(iterations);
-                        
-                        // draw tile on the screen in the specified color
-                        graphics.setColor(c);
-                        graphics.fillRect(loopX,loopY,loopTiles,loopTiles);
-                        
-                        y-=yStep;
-                        
-                    }
-                    
-                    // check if this thread was interrupted
-                    if (Thread.interrupted()) {
-                        System.out.println( this.getClass() + ": thread was interrupted");
-                        myFrame.setCalculatingLabel( false );
-                        throw new InterruptedException();
-                    }
-                    
-                    x+=xStep;
-                    
-                }
-                oldLoopTiles = loopTiles;
+            switch (spec.getRenderMode()) {
+                case 2:
+                    renderSubdivision();
+                    break;
+                case 3:
+                    renderBoundaryTracing();
+                    break;
+                default:
+                    renderProgressive();
+                    break;
+            }
+            if (spec.getAntialiasing() > 1 && !cancelled) {
+                antialias();
             }
         } catch (InterruptedException iE) {
             System.out.println( this.getClass() + ": interrupt exception caught");
-            
+            cancelled = true;
+
+        } catch (ExecutionException eE) {
+            // a tile failed; there is nothing we can repair here, so report it
+            cancelled = true;
+            eE.printStackTrace();
+        }
+
+        if (!cancelled) {
+            storeTiles();
         }
-        
-        // we are done with the entire image, so set the flag
-        finishedDrawing = true;
-        myFrame.setCalculatingLabel( false );
-                    
+
+        System.out.println( this.getClass() + ": doWork() finished after " + (System.currentTimeMillis() - startTime) + " ms");
+
         // return the drawn image object
         return bufferedImage;
-        
+
+    }
+
+    /** progressive refinement: calculate the image with tiles of 16x16 pixels first, then 8x8, ... 1x1 */
+    private void renderProgressive() throws InterruptedException, ExecutionException {
+        long startTime = System.currentTimeMillis();
+        guessedPixels.set(0);
+
+        // the first pass has no previous pass to guess from
+        boolean guessing = false;
+
+        // start with tiles of the size 16x16
+        for( int loopTiles = 16; loopTiles > 0; loopTiles/=2 ){
+
+            // split this pass into tiles, and let the render pool calculate them
+            List<ForkJoinTask<?>> tiles = new ArrayList<ForkJoinTask<?>>();
+            for (int tileY = 0; tileY < sizeY; tileY += TILE_SIZE) {
+                for (int tileX = 0; tileX < sizeX; tileX += TILE_SIZE) {
+                    tiles.add(new RenderTile(tileX, tileY, loopTiles, guessing));
+                }
+            }
+            runTiles(tiles);
+            guessing = spec.isSolidGuessing();
+
+            if (loopTiles > 1) {
+                // show the preview at once, instead of waiting for the next tick of the repaint timer
+                fireImageUpdated();
+                System.out.println( this.getClass() + ": preview " + loopTiles + "x" + loopTiles + " after " + (System.currentTimeMillis() - startTime) + " ms");
+            }
+        }
+
+        if (spec.isSolidGuessing()) {
+            System.out.println( this.getClass() + ": " + guessedPixels.get() + " of " + ((long)sizeX * sizeY) + " pixels guessed");
+        }
+    }
+
+    /** rectangle subdivision: every tile is subdivided until its border has a uniform iteration count */
+    private void renderSubdivision() throws InterruptedException, ExecutionException {
+        List<ForkJoinTask<?>> tiles = new ArrayList<ForkJoinTask<?>>();
+        for (int tileY = 0; tileY < sizeY; tileY += TILE_SIZE) {
+            for (int tileX = 0; tileX < sizeX; tileX += TILE_SIZE) {
+                tiles.add(new SubdivisionTile(tileX, tileY,
+                        Math.min(tileX + TILE_SIZE, sizeX) - 1, Math.min(tileY + TILE_SIZE, sizeY) - 1));
+            }
+        }
+        runTiles(tiles);
+    }
+
+    /** boundary tracing: every tile traces the contours of its iteration bands, and fills them */
+    private void renderBoundaryTracing() throws InterruptedException, ExecutionException {
+        List<ForkJoinTask<?>> tiles = new ArrayList<ForkJoinTask<?>>();
+        for (int tileY = 0; tileY < sizeY; tileY += TILE_SIZE) {
+            for (int tileX = 0; tileX < sizeX; tileX += TILE_SIZE) {
+                tiles.add(new BoundaryTile(tileX, tileY));
+            }
+        }
+        runTiles(tiles);
+    }
+
+    /** hand the tiles to the render pool, and wait until all of them are done */
+    private void runTiles(List<ForkJoinTask<?>> tiles) throws InterruptedException, ExecutionException {
+        for (ForkJoinTask<?> tile : tiles) {
+            renderPool.execute(tile);
+        }
+
+        // get() throws an exception if this thread is interrupted
+        for (ForkJoinTask<?> tile : tiles) {
+            tile.get();
+        }
+    }
+
+    /**
+     * return the iteration count of a pixel; it is calculated (and drawn) only when
+     * it is not known yet
+     */
+    protected int iteratePixel(int px, int py) {
+        int index = py * sizeX + px;
+        int iter = iterations[index];
+
+        if (iter < 0) {
+            // perform the iteration, by default with the abstract method doIteration()
+            iter = (distances != null) ? calcDistanceIteration(px, rowOffset + py, distances, index) : calcIteration(px, rowOffset + py);
+            iterations[index] = iter;
+            pixels[index] = palette.getRGB(iter);
+        }
+        return iter;
+    }
+
+    /**
+     * choose the precision from the size of a pixel, which is taken from the exact view window
+     * (in deep zooms the double borders are too close to each other for that)
+     */
+    private void choosePrecision() {
+        FractalRenderSpec grid = spec.getWholeImage();
+        BigDecimal xMinExact = grid.preciseXMin(), xMaxExact = grid.preciseXMax();
+        BigDecimal yMinExact = grid.preciseYMin(), yMaxExact = grid.preciseYMax();
+        double xStepExact = xMaxExact.subtract(xMinExact).doubleValue() / grid.getSizeX();
+        double yStepExact = yMaxExact.subtract(yMinExact).doubleValue() / grid.getSizeY();
+
+        double pixelSize = Math.min(Math.abs(xStepExact), Math.abs(yStepExact));
+        double magnitude = Math.max(Math.max(Math.abs(grid.getXMin()), Math.abs(grid.getXMax())),
+                Math.max(Math.abs(grid.getYMin()), Math.abs(grid.getYMax())));
+        double ulp = Math.ulp(magnitude);
+
+        if (pixelSize >= MIN_ULPS_PER_PIXEL * ulp) {
+            precision = PRECISION_DOUBLE;
+            return;
+        }
+
+        if (pixelSize >= MIN_ULPS_PER_PIXEL * ulp * DoubleDouble.EPSILON) {
+            precision = PRECISION_DOUBLE_DOUBLE;
+        } else {
+            precision = PRECISION_EXCEEDED;
+        }
+        xStep = xStepExact;
+        yStep = yStepExact;
+        xMinDD = new DoubleDouble(xMinExact);
+        yMaxDD = new DoubleDouble(yMaxExact);
+        System.out.println(this.getClass() + ": pixel size " + pixelSize + ", using double-double");
+    }
+
+    /** the keys of the tile cache for every tile of this render, one row of tiles after the other */
+    private String[] tileKeys() {
+        MathContext mc = MathContext.DECIMAL128;
+        FractalRenderSpec grid = spec.getWholeImage();
+        BigDecimal xStepExact = grid.preciseXMax().subtract(grid.preciseXMin()).divide(BigDecimal.valueOf(grid.getSizeX()), mc);
+        BigDecimal yStepExact = grid.preciseYMax().subtract(grid.preciseYMin()).divide(BigDecimal.valueOf(grid.getSizeY()), mc);
+        String fractal = getClass().getName() + "|" + spec.getIterationKey();
+
+        int tilesX = (sizeX + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (sizeY + TILE_SIZE - 1) / TILE_SIZE;
+        String[] keys = new String[tilesX * tilesY];
+        for (int tileY = 0; tileY < tilesY; tileY++) {
+            for (int tileX = 0; tileX < tilesX; tileX++) {
+                BigDecimal x = grid.preciseXMin().add(xStepExact.multiply(BigDecimal.valueOf(tileX * TILE_SIZE)));
+                BigDecimal y = grid.preciseYMax().subtract(yStepExact.multiply(BigDecimal.valueOf((long)rowOffset + tileY * TILE_SIZE)));
+                keys[tileY * tilesX + tileX] = TileCache.key(fractal, x, y, xStepExact, yStepExact,
+                        Math.min(TILE_SIZE, sizeX - tileX * TILE_SIZE), Math.min(TILE_SIZE, sizeY - tileY * TILE_SIZE));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * the disk cache with the size cap of this render, or null if there is none; the cache is opened
+     * again when the cap has changed
+     */
+    private DiskTileCache diskCache() {
+        synchronized (FractalRasterIteration.class) {
+            if (spec.getDiskCacheSize() != diskCacheSize) {
+                if (diskCache != null) {
+                    // the new cache opens the same files, so the old one must give them up first
+                    diskCache.close();
+                    diskCache = null;
+                }
+                diskCacheSize = spec.getDiskCacheSize();
+                if (diskCacheSize > 0) {
+                    try {
+                        diskCache = new DiskTileCache(DiskTileCache.defaultDirectory(), TILE_SIZE * TILE_SIZE, diskCacheSize * 1024L * 1024L);
+                    } catch (IOException iE) {
+                        System.out.println( this.getClass() + ": no disk cache, " + iE);
+                    }
+                }
+            }
+            return diskCache;
+        }
+    }
+
+    /** take the tiles of this render that an earlier render has left in the tile cache, or an earlier session on the disk */
+    private void loadCachedTiles() {
+        tileCache.setBudget(spec.getTileCacheSize() * 1024L * 1024L);
+        DiskTileCache disk = diskCache();
+        if (spec.getTileCacheSize() <= 0 && disk == null) {
+            return;
+        }
+
+        String[] keys = tileKeys();
+        int tilesX = (sizeX + TILE_SIZE - 1) / TILE_SIZE;
+        int found = 0;
+        for (int i = 0; i < keys.length; i++) {
+            int[] tile = tileCache.get(keys[i]);
+            if (tile == null && disk != null) {
+                tile = disk.get(keys[i]);
+                if (tile != null) {
+                    tileCache.put(keys[i], tile);
+                }
+            }
+            if (tile == null) {
+                continue;
+            }
+            int tileX = (i % tilesX) * TILE_SIZE, tileY = (i / tilesX) * TILE_SIZE;
+            int width = Math.min(TILE_SIZE, sizeX - tileX), height = Math.min(TILE_SIZE, sizeY - tileY);
+            for (int ly = 0; ly < height; ly++) {
+                int index = (tileY + ly) * sizeX + tileX;
+                System.arraycopy(tile, ly * width, iterations, index, width);
+                for (int lx = 0; lx < width; lx++) {
+                    pixels[index + lx] = palette.getRGB(tile[ly * width + lx]);
+                }
+            }
+            found++;
+        }
+
+        if (found > 0) {
+            System.out.println( this.getClass() + ": " + found + " of " + keys.length + " tiles from the tile cache");
+            fireImageUpdated();
+        }
+    }
+
+    /** put the tiles of this finished render into the tile cache, and onto the disk; not if pixels were guessed */
+    private void storeTiles() {
+        if (spec.isGuessed()) {
+            // guessed counts would be taken over by later exact renders
+            return;
+        }
+        DiskTileCache disk = diskCache();
+        if (spec.getTileCacheSize() <= 0 && disk == null) {
+            return;
+        }
+
+        String[] keys = tileKeys();
+        int tilesX = (sizeX + TILE_SIZE - 1) / TILE_SIZE;
+        for (int i = 0; i < keys.length; i++) {
+            int tileX = (i % tilesX) * TILE_SIZE, tileY = (i / tilesX) * TILE_SIZE;
+            int width = Math.min(TILE_SIZE, sizeX - tileX), height = Math.min(TILE_SIZE, sizeY - tileY);
+            int[] tile = new int[width * height];
+            for (int ly = 0; ly < height; ly++) {
+                System.arraycopy(iterations, (tileY + ly) * sizeX + tileX, tile, ly * width, width);
+            }
+            tileCache.put(keys[i], tile);
+            if (disk != null) {
+                disk.put(keys[i], tile);
+            }
+        }
+        if (disk != null) {
+            disk.flush();
+        }
+    }
+
+    /**
+     * take over the iteration counts of the previous image where one of its pixels lies on a pixel of
+     * this image, e.g. everything except the exposed strip after a pan. All other pixels that the previous
+     * image covers show a resampled preview until they are calculated.
+     */
+    private void reusePixels() {
+        FractalRenderer previousImage = previous;
+        previous = null;
+        previewed = null;
+        if (previousImage == null || previousImage.getClass() != getClass()
+                || previousImage.iterations == null || !spec.sameIterationCounts(previousImage.spec)
+                || (previousImage.spec.isGuessed() && !spec.isGuessed())) {
+            return;
+        }
+        FractalRenderSpec oldSpec = previousImage.spec;
+        int[] oldIterations = previousImage.iterations;
+        int oldSizeX = oldSpec.getSizeX(), oldSizeY = oldSpec.getSizeY();
+
+        // the old pixel coordinates of the new pixel (px, py) are (xOffset + px * xRatio, yOffset + py * yRatio)
+        MathContext mc = MathContext.DECIMAL128;
+        BigDecimal xStepNew = spec.preciseXMax().subtract(spec.preciseXMin()).divide(BigDecimal.valueOf(sizeX), mc);
+        BigDecimal yStepNew = spec.preciseYMax().subtract(spec.preciseYMin()).divide(BigDecimal.valueOf(sizeY), mc);
+        BigDecimal xStepOld = oldSpec.preciseXMax().subtract(oldSpec.preciseXMin()).divide(BigDecimal.valueOf(oldSizeX), mc);
+        BigDecimal yStepOld = oldSpec.preciseYMax().subtract(oldSpec.preciseYMin()).divide(BigDecimal.valueOf(oldSizeY), mc);
+        double xOffset = spec.preciseXMin().subtract(oldSpec.preciseXMin()).divide(xStepOld, mc).doubleValue();
+        double yOffset = oldSpec.preciseYMax().subtract(spec.preciseYMax()).divide(yStepOld, mc).doubleValue();
+        double xRatio = xStepNew.divide(xStepOld, mc).doubleValue();
+        double yRatio = yStepNew.divide(yStepOld, mc).doubleValue();
+
+        int[] oldX = new int[sizeX], oldY = new int[sizeY];
+        boolean[] exactX = new boolean[sizeX], exactY = new boolean[sizeY];
+        boolean anyX = mapPixels(xOffset, xRatio, oldSizeX, oldX, exactX);
+        boolean anyY = mapPixels(yOffset, yRatio, oldSizeY, oldY, exactY);
+        if (!anyX || !anyY) {
+            // the views do not overlap
+            return;
+        }
+
+        previewed = new boolean[sizeX * sizeY];
+        int reused = 0;
+        for (int py = 0; py < sizeY; py++) {
+            if (oldY[py] < 0) {
+                continue;
+            }
+            for (int px = 0; px < sizeX; px++) {
+                if (oldX[px] < 0) {
+                    continue;
+                }
+                int iter = oldIterations[oldY[py] * oldSizeX + oldX[px]];
+                if (iter < 0) {
+                    continue;
+                }
+                int index = py * sizeX + px;
+                if (iterations[index] >= 0) {
+                    // already taken from the tile cache
+                    continue;
+                }
+                pixels[index] = palette.getRGB(iter);
+                if (exactX[px] && exactY[py]) {
+                    iterations[index] = iter;
+                    reused++;
+                } else {
+                    previewed[index] = true;
+                }
+            }
+        }
+
+        System.out.println( this.getClass() + ": " + reused + " of " + ((long)sizeX * sizeY) + " pixels reused from the previous image");
+        fireImageUpdated();
+    }
+
+    /**
+     * map the new pixels 0 ... oldIndex.length-1 of one axis to the nearest old pixel, or -1 if they lie outside
+     * of the old image; exact[i] is set if the new pixel lies on the old one. Returns false if no pixel maps.
+     */
+    private static boolean mapPixels(double offset, double ratio, int oldSize, int[] oldIndex, boolean[] exact) {
+        boolean any = false;
+        for (int i = 0; i < oldIndex.length; i++) {
+            double position = offset + i * ratio;
+            long nearest = Math.round(position);
+            if (nearest < 0 || nearest >= oldSize) {
+                oldIndex[i] = -1;
+                continue;
+            }
+            oldIndex[i] = (int)nearest;
+            exact[i] = Math.abs(position - nearest) < REUSE_TOLERANCE;
+            any = true;
+        }
+        return any;
+    }
+
+    /** the precision of the current render: PRECISION_DOUBLE, PRECISION_DOUBLE_DOUBLE or PRECISION_EXCEEDED */
+    protected int getPrecision() {
+        return precision;
+    }
+
+    /** the size of a pixel in the current render */
+    protected double getXStep() {
+        return xStep;
+    }
+
+    protected double getYStep() {
+        return yStep;
+    }
+
+    /** the tolerance of the periodicity check in the current render: that of the spec, but not more than a fraction of a pixel */
+    protected double getPeriodicityTolerance() {
+        return periodicityTolerance;
+    }
+
+    /**
+     * calculate the pixels (px, pys[0]) ... (px, pys[count-1]) of one column, which are not known yet,
+     * and store their iteration counts in result
+     */
+    protected void iteratePixels(int px, int[] pys, int count, int[] result) {
+        int[] pxs = new int[count];
+        Arrays.fill(pxs, px);
+        iteratePixels(pxs, pys, count, result);
+    }
+
+    /**
+     * calculate the pixels (pxs[0], pys[0]) ... (pxs[count-1], pys[count-1]), which are not known yet,
+     * and store their iteration counts in result. In double precision they are handed to doIterations()
+     * all at once, so that a subclass can iterate several of them side by side.
+     */
+    protected void iteratePixels(int[] pxs, int[] pys, int count, int[] result) {
+        if (precision != PRECISION_DOUBLE || distances != null) {
+            for (int i = 0; i < count; i++) {
+                result[i] = iteratePixel(pxs[i], pys[i]);
+            }
+            return;
+        }
+
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = xMin + pxs[i] * xStep;
+            y[i] = yMax - (rowOffset + pys[i]) * yStep;
+        }
+
+        doIterations(x, y, result, count);
+
+        for (int i = 0; i < count; i++) {
+            int index = pys[i] * sizeX + pxs[i];
+            iterations[index] = result[i];
+            pixels[index] = palette.getRGB(result[i]);
+        }
+    }
+
+    /**
+     * adaptive antialiasing: a pixel on an edge gets the average color of antialiasing x antialiasing
+     * samples, evenly spread over the pixel; uniform areas, which are most of the image, keep their
+     * single sample. The extra work is limited by the budget of the spec, in percent of the work of
+     * iterating every pixel once; a sample is assumed to need as many iterations as its pixel. When the
+     * edges need more than that, those with the highest contrast come first.
+     */
+    private void antialias() throws InterruptedException, ExecutionException {
+        long startTime = System.currentTimeMillis();
+        antialiasing = spec.getAntialiasing();
+        antialiasedX = new int[sizeY][];
+        antialiasSamples = new int[sizeY][];
+        antialiasedPixels.set(0);
+
+        // add up the work of antialiasing the pixels of every contrast, and (in the last element) of the image ...
+        long[] histogram = new long[MAX_CONTRAST + 2];
+        List<ForkJoinTask<?>> tiles = new ArrayList<ForkJoinTask<?>>();
+        for (int y0 = 0; y0 < sizeY; y0 += ANTIALIAS_ROWS) {
+            tiles.add(new AntialiasRows(y0, Math.min(y0 + ANTIALIAS_ROWS, sizeY), histogram));
+        }
+        runTiles(tiles);
+
+        // ... and lower the threshold from the highest contrast on, as long as the budget allows
+        long budget = histogram[MAX_CONTRAST + 1] / 100L * spec.getAntialiasingBudget();
+        long work = 0;
+        antialiasThreshold = MAX_CONTRAST + 1;
+        while (antialiasThreshold > EDGE_CONTRAST && work + histogram[antialiasThreshold - 1] <= budget) {
+            antialiasThreshold--;
+            work += histogram[antialiasThreshold];
+        }
+
+        tiles.clear();
+        for (int y0 = 0; y0 < sizeY; y0 += ANTIALIAS_ROWS) {
+            tiles.add(new AntialiasRows(y0, Math.min(y0 + ANTIALIAS_ROWS, sizeY), null));
+        }
+        runTiles(tiles);
+        fireImageUpdated();
+
+        System.out.println( this.getClass() + ": " + antialiasedPixels.get() + " of " + ((long)sizeX * sizeY) + " pixels antialiased with "
+                + antialiasing + "x" + antialiasing + " samples (contrast " + antialiasThreshold + " and more) after " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    /**
+     * the contrast of the pixel to its four neighbours: the largest difference of its color to the color
+     * of a neighbour with another iteration count (sum over red, green and blue); 0 if they all have its count,
+     * or if distance estimation knows that the pixel is far from the set
+     */
+    private int contrast(int px, int py) {
+        int index = py * sizeX + px;
+        if (distances != null && distances[index] > ANTIALIAS_DISTANCE) {
+            // an edge between two iteration bands, far from the set
+            return 0;
+        }
+        int contrast = 0;
+        if (px > 0) {
+            contrast = Math.max(contrast, colorDistance(index, index - 1));
+        }
+        if (px < sizeX - 1) {
+            contrast = Math.max(contrast, colorDistance(index, index + 1));
+        }
+        if (py > 0) {
+            contrast = Math.max(contrast, colorDistance(index, index - sizeX));
+        }
+        if (py < sizeY - 1) {
+            contrast = Math.max(contrast, colorDistance(index, index + sizeX));
+        }
+        return contrast;
+    }
+
+    /** the difference of the colors of two pixels, or 0 if they have the same iteration count */
+    private int colorDistance(int index, int neighbour) {
+        if (iterations[index] == iterations[neighbour]) {
+            return 0;
+        }
+        int rgb = palette.getRGB(iterations[index]);
+        int other = palette.getRGB(iterations[neighbour]);
+        return Math.abs(((rgb >> 16) & 0xFF) - ((other >> 16) & 0xFF))
+                + Math.abs(((rgb >> 8) & 0xFF) - ((other >> 8) & 0xFF))
+                + Math.abs((rgb & 0xFF) - (other & 0xFF));
+    }
+
+    /** the average color of count samples, starting at offset */
+    private int averageColor(int[] samples, int offset, int count) {
+        int red = 0, green = 0, blue = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int rgb = palette.getRGB(samples[i]);
+            red += (rgb >> 16) & 0xFF;
+            green += (rgb >> 8) & 0xFF;
+            blue += rgb & 0xFF;
+        }
+        return 0xFF000000 | ((red + count / 2) / count) << 16 | ((green + count / 2) / count) << 8 | ((blue + count / 2) / count);
+    }
+
+    /** recolor the rows, and average the samples of their antialiased pixels again with the new palette */
+    protected void recolorRows(int y0, int y1) {
+        super.recolorRows(y0, y1);
+        if (antialiasedX == null) {
+            return;
+        }
+
+        int samples = antialiasing * antialiasing;
+        for (int py = y0; py < y1; py++) {
+            int[] xs = antialiasedX[py];
+            if (xs == null) {
+                continue;
+            }
+            for (int i = 0; i < xs.length; i++) {
+                pixels[py * sizeX + xs[i]] = averageColor(antialiasSamples[py], i * samples, samples);
+            }
+        }
+    }
+
+    /**
+     * solid guessing: the iteration count of the new pixel (px, py) of the pass with the given step,
+     * if the four corners of its block in the previous pass (2*step pixels wide) all have the same count;
+     * -1 if they differ, or if the block reaches beyond the image
+     */
+    private int guessPixel(int px, int py, int step) {
+        int x0 = px - px % (2 * step);
+        int y0 = py - py % (2 * step);
+        int x1 = x0 + 2 * step;
+        int y1 = y0 + 2 * step;
+        if (x1 >= sizeX || y1 >= sizeY) {
+            return -1;
+        }
+
+        // the corners belong to earlier passes, so no worker of this pass writes them
+        int value = iterations[y0 * sizeX + x0];
+        if (value < 0 || iterations[y0 * sizeX + x1] != value
+                || iterations[y1 * sizeX + x0] != value || iterations[y1 * sizeX + x1] != value) {
+            return -1;
+        }
+
+        // with distance estimation, the set must not reach into the block from one of the corners
+        float blockSize = 2 * step;
+        if (closerToSet(y0 * sizeX + x0, blockSize) || closerToSet(y0 * sizeX + x1, blockSize)
+                || closerToSet(y1 * sizeX + x0, blockSize) || closerToSet(y1 * sizeX + x1, blockSize)) {
+            return -1;
+        }
+        return value;
     }
-    
-    
-    
+
+    /**
+     * called by doWork() before any pixel is calculated, when the view window of this render is fixed;
+     * a subclass can prepare here what all the pixels have in common
+     */
+    protected void prepareIteration() {
+    }
+
+    /**
+     * calculate the iteration count of a pixel, with the coordinates of the pixel in the chosen precision;
+     * px and py may have a fraction, for the samples between the pixels (antialiasing). py is the row
+     * in the whole image, i.e. rowOffset is already added
+     */
+    protected int calcIteration(double px, double py) {
+        if (precision == PRECISION_DOUBLE) {
+            return doIteration(xMin + px * xStep, yMax - py * yStep);
+        }
+        return doIteration(new DoubleDouble(xMinDD).addProduct(px, xStep), new DoubleDouble(yMaxDD).addProduct(-py, yStep));
+    }
+
+    /**
+     * distance estimation is used when the spec asks for it, the subclass supports it, and the pixels
+     * are iterated with doubles; the deeper precisions iterate the difference to a reference orbit,
+     * or are too slow for a second orbit (the derivative) anyway
+     */
+    private void prepareDistances() {
+        distances = null;
+        if (spec.getDistanceEstimation() == 0 || !hasDistanceEstimation()) {
+            return;
+        }
+        if (precision != PRECISION_DOUBLE) {
+            System.out.println( this.getClass() + ": no distance estimation beyond double precision");
+            return;
+        }
+        distances = new float[sizeX * sizeY];
+        Arrays.fill(distances, Float.NaN);
+        pixelSize = Math.min(Math.abs(xStep), Math.abs(yStep));
+    }
+
+    /**
+     * the value of a pixel with distance estimation: BOUNDARY_DISTANCE pixels around the set belong to it;
+     * outside, it is the iteration count, or the distance level with distance colors. The distance
+     * itself is stored in pixels in distance[index]; px and py may have a fraction, as in calcIteration()
+     */
+    private int calcDistanceIteration(double px, double py, float[] distance, int index) {
+        int maxIterations = spec.getMaxIterations();
+        int iter = doDistanceIteration(xMin + px * xStep, yMax - py * yStep, distance, index);
+        double pixelDistance = distance[index] / pixelSize;
+        distance[index] = (float) pixelDistance;
+
+        if (iter >= maxIterations || !(pixelDistance >= BOUNDARY_DISTANCE)) {
+            return maxIterations;
+        }
+        if (spec.getDistanceEstimation() == 2) {
+            double level = DISTANCE_LEVELS_PER_OCTAVE * Math.log(pixelDistance / BOUNDARY_DISTANCE) / Math.log(2.0D);
+            return (int) Math.min(maxIterations - 1, level);
+        }
+        return iter;
+    }
+
     // this is the abstract method that does the iteration
     protected abstract int doIteration(double x, double y);
-    
+
+    /**
+     * return the iteration in which the orbit of the point comes back closer than the tolerance, i.e.
+     * the point is known to lie inside the set; 0 if it does not within maxIterations. A count of
+     * maxIterations alone does not tell that: a point close to the set may still escape a little later.
+     * By default nothing is known.
+     */
+    protected int findCycle(double x, double y, double tolerance) {
+        return 0;
+    }
+
+    /**
+     * the band of a pixel inside the set: the power of two below the iteration in which its cycle
+     * is found; 0 if the pixel is not known to lie inside the set, or not in double precision. Like
+     * the iteration count outside, it grows towards the border of the set.
+     */
+    private int interiorBand(int px, int py) {
+        if (precision != PRECISION_DOUBLE) {
+            return 0;
+        }
+        return Integer.highestOneBit(findCycle(xMin + px * xStep, yMax - (rowOffset + py) * yStep,
+                PERIODICITY_TOLERANCE_PER_PIXEL * Math.min(Math.abs(xStep), Math.abs(yStep))));
+    }
+
+    /** true if the subclass implements doDistanceIteration() */
+    protected boolean hasDistanceEstimation() {
+        return false;
+    }
+
+    /**
+     * the iteration of doIteration(double, double) with the derivative of the orbit alongside; the
+     * estimated distance of the point to the set (0 inside) is stored in distance[index]
+     */
+    protected int doDistanceIteration(double x, double y, float[] distance, int index) {
+        distance[index] = Float.NaN;
+        return doIteration(x, y);
+    }
+
+    /** true if the pixel is known to lie outside the set, but closer to it than the distance (in pixels) */
+    private boolean closerToSet(int index, float distance) {
+        return distances != null && distances[index] > 0.0F && distances[index] < distance;
+    }
+
+    /**
+     * the distance estimate of an escaped point from z and its derivative dz: |z| ln|z| / (2 |dz|);
+     * 0 if the derivative has overflowed, i.e. the point is extremely close to the set
+     */
+    protected static double distanceEstimate(double zX, double zY, double dzX, double dzY) {
+        double zLength = Math.sqrt(zX*zX + zY*zY);
+        double distance = 0.5D * zLength * Math.log(zLength) / Math.sqrt(dzX*dzX + dzY*dzY);
+        return (distance >= 0.0D) ? distance : 0.0D;
+    }
+
+    // the same iteration with double-double precision
+    protected abstract int doIteration(DoubleDouble x, DoubleDouble y);
+
+    /**
+     * iterate the points (x[i], y[i]) for i < count, and store the iteration counts in result;
+     * by default one after the other with doIteration()
+     */
+    protected void doIterations(double[] x, double[] y, int[] result, int count) {
+        for (int i = 0; i < count; i++) {
+            result[i] = doIteration(x[i], y[i]);
+        }
+    }
+
+    /**
+     * the state of one lane of a kernel that iterates several points side by side, after step i:
+     * 0 if the point is still iterating, otherwise its iteration count. It decides exactly like the
+     * loops in doIteration(double, double): first the cycle check, then the escape test.
+     */
+    protected static int laneResult(double zX, double zY, double savedX, double savedY, int i,
+            double tolerance, double maxLength, int maxIterations) {
+        if (Math.abs(zX - savedX) < tolerance && Math.abs(zY - savedY) < tolerance) {
+            // the orbit is periodic, so the point will never escape
+            return maxIterations;
+        }
+        if (!((zX*zX + zY*zY) <= maxLength) || i >= maxIterations) {
+            return i;
+        }
+        return 0;
+    }
+
+
+    /**
+     * RenderTile calculates one square area of the image for the current pass.
+     * Pixels that were already calculated in the previous pass are skipped. With solid guessing,
+     * a new pixel whose block of the previous pass has four equal corners gets their value
+     * without being iterated.
+     */
+    private class RenderTile extends RecursiveAction {
+
+        private final int tileX, tileY, loopTiles;
+        private final boolean guessing;
+
+        RenderTile(int tileX, int tileY, int loopTiles, boolean guessing) {
+            this.tileX = tileX;
+            this.tileY = tileY;
+            this.loopTiles = loopTiles;
+            this.guessing = guessing;
+        }
+
+        protected void compute() {
+            int endX = Math.min(tileX + TILE_SIZE, sizeX);
+            int endY = Math.min(tileY + TILE_SIZE, sizeY);
+
+            int[] rows = new int[TILE_SIZE / loopTiles];
+            int[] result = new int[TILE_SIZE / loopTiles];
+            int[] guessedRows = new int[TILE_SIZE / loopTiles];
+            Color[] column = new Color[TILE_SIZE / loopTiles];
+            int guessedInTile = 0;
+
+            // loop through the x axis
+            for (int loopX = tileX; loopX < endX; loopX += loopTiles) {
+
+                if (cancelled) {
+                    return;
+                }
+
+                // loop through the y axis, and collect the pixels that were not calculated in a previous pass;
+                // those that can be guessed from the previous pass are set at once
+                int count = 0, guessed = 0;
+                for (int loopY = tileY; loopY < endY; loopY += loopTiles) {
+                    int index = loopY * sizeX + loopX;
+                    if (iterations[index] >= 0) {
+                        continue;
+                    }
+                    int guess = guessing ? guessPixel(loopX, loopY, loopTiles) : -1;
+                    if (guess >= 0) {
+                        iterations[index] = guess;
+                        pixels[index] = palette.getRGB(guess);
+                        guessedRows[guessed++] = loopY;
+                    } else {
+                        rows[count++] = loopY;
+                    }
+                }
+                guessedInTile += guessed;
+
+                // in the last pass, iteratePixels() writes the colors straight into the raster
+                iteratePixels(loopX, rows, count, result);
+
+                if (loopTiles == 1) {
+                    continue;
+                }
+
+                for (int i = 0; i < count; i++) {
+                    column[i] = palette.getColor(result[i]);
+                }
+
+                // the graphics object is shared by all workers, so draw the whole column at once
+                synchronized (graphics) {
+                    for (int i = 0; i < count; i++) {
+                        // draw tile on the screen in the specified color, unless the preview is better
+                        if (previewed == null || !previewed[rows[i] * sizeX + loopX]) {
+                            graphics.setColor(column[i]);
+                            graphics.fillRect(loopX, rows[i], loopTiles, loopTiles);
+                        }
+                    }
+                    for (int i = 0; i < guessed; i++) {
+                        int index = guessedRows[i] * sizeX + loopX;
+                        if (previewed == null || !previewed[index]) {
+                            graphics.setColor(palette.getColor(iterations[index]));
+                            graphics.fillRect(loopX, guessedRows[i], loopTiles, loopTiles);
+                        }
+                    }
+                }
+            }
+            guessedPixels.addAndGet(guessedInTile);
+        }
+    }
+
+    /**
+     * AntialiasRows antialiases the pixels of the rows y0 (included) to y1 (excluded) whose contrast
+     * is at least antialiasThreshold; or, with a histogram, only adds up the work for every contrast.
+     * It only reads the iteration counts, which do not change any more, and writes the pixels
+     * of its own rows.
+     */
+    private class AntialiasRows extends RecursiveAction {
+
+        private final int y0, y1;
+        private final long[] histogram;
+
+        AntialiasRows(int y0, int y1, long[] histogram) {
+            this.y0 = y0;
+            this.y1 = y1;
+            this.histogram = histogram;
+        }
+
+        protected void compute() {
+            int samples = antialiasing * antialiasing;
+
+            if (histogram != null) {
+                long[] counts = new long[histogram.length];
+                for (int py = y0; py < y1; py++) {
+                    for (int px = 0; px < sizeX; px++) {
+                        // with distance colors, the value is a distance level; the work is then only a rough guess
+                        long work = iterations[py * sizeX + px] + 1;
+                        counts[contrast(px, py)] += work * samples;
+                        counts[MAX_CONTRAST + 1] += work;
+                    }
+                }
+                synchronized (histogram) {
+                    for (int i = 0; i < counts.length; i++) {
+                        histogram[i] += counts[i];
+                    }
+                }
+                return;
+            }
+
+            int[] xs = new int[sizeX];
+            float[] sampleDistance = new float[1];
+
+            for (int py = y0; py < y1; py++) {
+                if (cancelled) {
+                    return;
+                }
+
+                int count = 0;
+                for (int px = 0; px < sizeX; px++) {
+                    if (contrast(px, py) >= antialiasThreshold) {
+                        xs[count++] = px;
+                    }
+                }
+                if (count == 0) {
+                    continue;
+                }
+
+                // the samples lie in the middle of an even grid over the pixel; with an odd number
+                // of samples per axis, the middle one is the pixel itself
+                int[] rowSamples = new int[count * samples];
+                for (int i = 0; i < count; i++) {
+                    int offset = i * samples;
+                    for (int sy = 0; sy < antialiasing; sy++) {
+                        for (int sx = 0; sx < antialiasing; sx++) {
+                            if (2 * sx + 1 == antialiasing && 2 * sy + 1 == antialiasing) {
+                                rowSamples[offset + sy * antialiasing + sx] = iterations[py * sizeX + xs[i]];
+                                continue;
+                            }
+                            double sampleX = xs[i] + (sx + 0.5D) / antialiasing - 0.5D;
+                            double sampleY = (rowOffset + py) + (sy + 0.5D) / antialiasing - 0.5D;
+                            rowSamples[offset + sy * antialiasing + sx] = (distances != null)
+                                    ? calcDistanceIteration(sampleX, sampleY, sampleDistance, 0) : calcIteration(sampleX, sampleY);
+                        }
+                    }
+                    pixels[py * sizeX + xs[i]] = averageColor(rowSamples, offset, samples);
+                }
+
+                antialiasedX[py] = Arrays.copyOf(xs, count);
+                antialiasSamples[py] = rowSamples;
+                antialiasedPixels.addAndGet(count);
+            }
+        }
+    }
+
+    /**
+     * SubdivisionTile calculates the rectangle from (x0,y0) to (x1,y1), both corners included,
+     * by rectangle subdivision. A rectangle is only filled when its border and its middle row and
+     * column, i.e. the edges that its four quarters share, all have the same iteration count; the
+     * fill stops at these lines, so that a thin feature which slips in between two border pixels
+     * is caught on the way to the middle. The pixels of the border and of the middle lines are
+     * iterated together, so that the lanes of doIterations() are used.
+     */
+    private class SubdivisionTile extends RecursiveAction {
+
+        private final int x0, y0, x1, y1;
+
+        /** the pixels that are not known yet, collected for one call of iteratePixels() */
+        private int[] pxs, pys, result;
+        private int count;
+
+        SubdivisionTile(int x0, int y0, int x1, int y1) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+        }
+
+        protected void compute() {
+            if (cancelled) {
+                return;
+            }
+
+            int width = x1 - x0 + 1, height = y1 - y0 + 1;
+            boolean small = (x1 - x0 < MIN_SUBDIVISION_SIZE) || (y1 - y0 < MIN_SUBDIVISION_SIZE);
+            int size = small ? width * height : 2 * (width + height);
+            pxs = new int[size];
+            pys = new int[size];
+            result = new int[size];
+
+            // small rectangles are just calculated
+            if (small) {
+                for (int py = y0; py <= y1; py++) {
+                    collectLine(x0, py, 1, 0, width);
+                }
+                iterateCollected();
+                return;
+            }
+
+            // calculate the border, and find out if it has one iteration count only
+            collectLine(x0, y0, 1, 0, width);
+            collectLine(x0, y1, 1, 0, width);
+            collectLine(x0, y0 + 1, 0, 1, height - 2);
+            collectLine(x1, y0 + 1, 0, 1, height - 2);
+            iterateCollected();
+
+            int value = iterations[y0 * sizeX + x0];
+            boolean uniform = isUniformLine(x0, y0, 1, 0, width, value) && isUniformLine(x0, y1, 1, 0, width, value)
+                    && isUniformLine(x0, y0 + 1, 0, 1, height - 2, value) && isUniformLine(x1, y0 + 1, 0, 1, height - 2, value);
+
+            // the middle row and column are the shared edges of the quarters; they are needed for the fill as well as for the split
+            int xm = (x0 + x1) / 2;
+            int ym = (y0 + y1) / 2;
+            collectLine(x0 + 1, ym, 1, 0, width - 2);
+            collectLine(xm, y0 + 1, 0, 1, ym - y0 - 1);
+            collectLine(xm, ym + 1, 0, 1, y1 - ym - 1);
+            iterateCollected();
+
+            uniform = uniform && isUniformLine(x0 + 1, ym, 1, 0, width - 2, value) && isUniformLine(xm, y0 + 1, 0, 1, height - 2, value);
+            pxs = pys = result = null;
+
+            // a border that has not escaped yet may still enclose a point that escapes before maxIterations;
+            // so the inside of the set is only filled when all these pixels are known to be periodic, and
+            // lie in one band (a border through a pinch of the set, where an outside channel could slip in, does not)
+            if (uniform && value == spec.getMaxIterations()) {
+                int band = interiorBand(x0, y0);
+                uniform = (band > 0) && isInteriorLine(x0, y0, 1, 0, width, band) && isInteriorLine(x0, y1, 1, 0, width, band)
+                        && isInteriorLine(x0, y0 + 1, 0, 1, height - 2, band) && isInteriorLine(x1, y0 + 1, 0, 1, height - 2, band)
+                        && isInteriorLine(x0 + 1, ym, 1, 0, width - 2, band) && isInteriorLine(xm, y0 + 1, 0, 1, height - 2, band);
+            }
+
+            if (uniform) {
+                // the set is connected, so the inside of every quarter has the same value as its border
+                int rgb = palette.getRGB(value);
+                for (int py = y0 + 1; py < y1; py++) {
+                    if (py == ym) {
+                        continue;
+                    }
+                    int index = py * sizeX;
+                    Arrays.fill(iterations, index + x0 + 1, index + xm, value);
+                    Arrays.fill(pixels, index + x0 + 1, index + xm, rgb);
+                    Arrays.fill(iterations, index + xm + 1, index + x1, value);
+                    Arrays.fill(pixels, index + xm + 1, index + x1, rgb);
+                }
+                return;
+            }
+
+            // otherwise split the rectangle into four; neighbours share the middle row and column
+            invokeAll(new SubdivisionTile(x0, y0, xm, ym),
+                    new SubdivisionTile(xm, y0, x1, ym),
+                    new SubdivisionTile(x0, ym, xm, y1),
+                    new SubdivisionTile(xm, ym, x1, y1));
+        }
+
+        /** collect the pixels of a line that are not known yet, starting at (x, y) in steps of (dx, dy) */
+        private void collectLine(int x, int y, int dx, int dy, int length) {
+            for (int i = 0; i < length; i++, x += dx, y += dy) {
+                if (iterations[y * sizeX + x] < 0) {
+                    pxs[count] = x;
+                    pys[count] = y;
+                    count++;
+                }
+            }
+        }
+
+        /** calculate the collected pixels all at once */
+        private void iterateCollected() {
+            iteratePixels(pxs, pys, count, result);
+            count = 0;
+        }
+
+        /** true if all pixels of a line have this value, and none of them is close to the set */
+        private boolean isUniformLine(int x, int y, int dx, int dy, int length, int value) {
+            for (int i = 0; i < length; i++, x += dx, y += dy) {
+                int index = y * sizeX + x;
+                if (iterations[index] != value || closerToSet(index, NEAR_DISTANCE)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** true if all pixels of a line are known to lie inside the set, in this band */
+        private boolean isInteriorLine(int x, int y, int dx, int dy, int length, int band) {
+            for (int i = 0; i < length; i++, x += dx, y += dy) {
+                if (interiorBand(x, y) != band) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * BoundaryTile calculates one square area of the image by boundary tracing.
+     * All pixels on the edge of the tile are put into a queue. When a pixel is taken from
+     * the queue, its four neighbours are calculated; every neighbour with a different iteration
+     * count lies on a contour, so it is queued as well (together with the diagonal neighbours
+     * between them). When the queue is empty, all contours are known, and the pixels that were
+     * never reached are enclosed by a contour: they get the value of their left neighbour.
+     * An area enclosed by a contour of maxIterations is only filled when all pixels of that contour
+     * are known to lie inside the set, in one band (see SubdivisionTile); otherwise a filament that
+     * escapes could pass between them, so the pixels of the area are calculated as well.
+     */
+    private class BoundaryTile extends RecursiveAction {
+
+        private final int tileX, tileY;
+        private int width, height;
+
+        /** pixels (tile coordinates, one row after the other) waiting to be scanned */
+        private int[] queue;
+        private int queueHead, queueTail;
+        private boolean[] queued;
+
+        BoundaryTile(int tileX, int tileY) {
+            this.tileX = tileX;
+            this.tileY = tileY;
+        }
+
+        protected void compute() {
+            width = Math.min(tileX + TILE_SIZE, sizeX) - tileX;
+            height = Math.min(tileY + TILE_SIZE, sizeY) - tileY;
+
+            // every pixel is queued at most once, so the queue never wraps
+            queue = new int[width * height];
+            queued = new boolean[width * height];
+            queueHead = 0;
+            queueTail = 0;
+
+            // start with the edges of the tile
+            for (int lx = 0; lx < width; lx++) {
+                addToQueue(lx, 0);
+                addToQueue(lx, height - 1);
+            }
+            for (int ly = 1; ly < height - 1; ly++) {
+                addToQueue(0, ly);
+                addToQueue(width - 1, ly);
+            }
+
+            traceQueue();
+            if (queueUncertainAreas()) {
+                traceQueue();
+            }
+            if (cancelled) {
+                return;
+            }
+
+            // fill the inside of the contours; the left edge has been calculated, so there always is a left neighbour
+            for (int ly = 0; ly < height; ly++) {
+                int index = (tileY + ly) * sizeX + tileX;
+                for (int lx = 1; lx < width; lx++) {
+                    if (iterations[index + lx] < 0) {
+                        iterations[index + lx] = iterations[index + lx - 1];
+                        pixels[index + lx] = pixels[index + lx - 1];
+                    }
+                }
+            }
+        }
+
+        /** scan the queued pixels until no contour is left */
+        private void traceQueue() {
+            while (queueHead < queueTail) {
+                if (cancelled) {
+                    return;
+                }
+                int p = queue[queueHead++];
+                scan(p % width, p / width);
+            }
+        }
+
+        /**
+         * look at the areas of pixels that were never reached; an area enclosed by pixels of maxIterations
+         * that are not all known to lie inside the set in one band is queued, so that it is calculated.
+         * Returns true if any area was queued.
+         */
+        private boolean queueUncertainAreas() {
+            int maxIterations = spec.getMaxIterations();
+            // the area of every unreached pixel, and the interior band of the enclosing pixels (-1 = not known yet)
+            boolean[] visited = new boolean[width * height];
+            int[] bands = new int[width * height];
+            Arrays.fill(bands, -1);
+            int[] area = new int[width * height];
+            boolean queuedAny = false;
+
+            for (int start = 0; start < width * height; start++) {
+                if (visited[start] || iterations[(tileY + start / width) * sizeX + tileX + start % width] >= 0) {
+                    continue;
+                }
+
+                // collect the area; its first pixel in row order has a calculated left neighbour
+                int enclosing = start - 1;
+                int value = iterations[(tileY + enclosing / width) * sizeX + tileX + enclosing % width];
+                int band = (value == maxIterations) ? bandOf(enclosing, bands) : 0;
+                boolean certain = (value != maxIterations) || (band > 0);
+                int areaSize = 0;
+                visited[start] = true;
+                area[areaSize++] = start;
+
+                for (int a = 0; a < areaSize; a++) {
+                    int p = area[a];
+                    int lx = p % width, ly = p / width;
+                    int[] neighbours = { (lx > 0) ? p - 1 : -1, (lx < width - 1) ? p + 1 : -1,
+                                         (ly > 0) ? p - width : -1, (ly < height - 1) ? p + width : -1 };
+                    for (int n : neighbours) {
+                        if (n < 0 || visited[n]) {
+                            continue;
+                        }
+                        if (iterations[(tileY + n / width) * sizeX + tileX + n % width] < 0) {
+                            visited[n] = true;
+                            area[areaSize++] = n;
+                        } else if (certain && value == maxIterations) {
+                            certain = bandOf(n, bands) == band;
+                        }
+                    }
+                }
+
+                if (!certain) {
+                    // the pixels are iterated together in the lanes of doIterations(), and then traced
+                    int[] pxs = new int[areaSize], pys = new int[areaSize];
+                    for (int a = 0; a < areaSize; a++) {
+                        pxs[a] = tileX + area[a] % width;
+                        pys[a] = tileY + area[a] / width;
+                    }
+                    iteratePixels(pxs, pys, areaSize, new int[areaSize]);
+                    for (int a = 0; a < areaSize; a++) {
+                        addToQueue(area[a] % width, area[a] / width);
+                    }
+                    queuedAny = true;
+                }
+            }
+            return queuedAny;
+        }
+
+        /** the interior band of a calculated pixel of the tile, see interiorBand(); it is only looked for once */
+        private int bandOf(int p, int[] bands) {
+            if (bands[p] < 0) {
+                bands[p] = interiorBand(tileX + p % width, tileY + p / width);
+            }
+            return bands[p];
+        }
+
+        /**
+         * calculate the neighbours of a pixel, and queue those that are on a contour; with distance estimation,
+         * all neighbours of a pixel close to the set are queued, so that its filaments are followed
+         */
+        private void scan(int lx, int ly) {
+            int center = iteratePixel(tileX + lx, tileY + ly);
+            boolean near = closerToSet((tileY + ly) * sizeX + tileX + lx, NEAR_DISTANCE);
+
+            boolean left  = (lx > 0)          && (iteratePixel(tileX + lx - 1, tileY + ly) != center || near);
+            boolean right = (lx < width - 1)  && (iteratePixel(tileX + lx + 1, tileY + ly) != center || near);
+            boolean up    = (ly > 0)          && (iteratePixel(tileX + lx, tileY + ly - 1) != center || near);
+            boolean down  = (ly < height - 1) && (iteratePixel(tileX + lx, tileY + ly + 1) != center || near);
+
+            if (left) {
+                addToQueue(lx - 1, ly);
+            }
+            if (right) {
+                addToQueue(lx + 1, ly);
+            }
+            if (up) {
+                addToQueue(lx, ly - 1);
+            }
+            if (down) {
+                addToQueue(lx, ly + 1);
+            }
+
+            // the contour may also continue diagonally
+            if ((left || up) && (lx > 0) && (ly > 0)) {
+                addToQueue(lx - 1, ly - 1);
+            }
+            if ((right || up) && (lx < width - 1) && (ly > 0)) {
+                addToQueue(lx + 1, ly - 1);
+            }
+            if ((left || down) && (lx > 0) && (ly < height - 1)) {
+                addToQueue(lx - 1, ly + 1);
+            }
+            if ((right || down) && (lx < width - 1) && (ly < height - 1)) {
+                addToQueue(lx + 1, ly + 1);
+            }
+        }
+
+        private void addToQueue(int lx, int ly) {
+            int p = ly * width + lx;
+            if (!queued[p]) {
+                queued[p] = true;
+                queue[queueTail++] = p;
+            }
+        }
+    }
+
 }
@@ -0,0 +1,46 @@
+/*
+ * FractalRenderListener.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+/**
+ * FractalRenderListener is told about the progress of a FractalRenderer. The methods are called
+ * in the thread that runs the render (or in one of the workers of the render pool), so a listener
+ * that updates Swing components must hand that over to the event dispatch thread, e.g. by repaint().
+ */
+public interface FractalRenderListener {
+    
+    /** the renderer has started a new image; its buffered image exists from now on */
+    void renderStarted(FractalRenderer renderer);
+    
+    /** a part of the image is ready and can be shown, e.g. a preview pass or the tiles from a cache */
+    void imageUpdated(FractalRenderer renderer);
+    
+    /** the image is complete, or the render was cancelled */
+    void renderFinished(FractalRenderer renderer);
+}
@@ -0,0 +1,462 @@
+/*
+ * FractalRenderSpec.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ *
+ * FractalRenderSpec is a frozen copy of the FractalParameters that one render needs.
+ * FractalParameters is changed by the user interface while a render is running; the workers
+ * therefore read this copy, which is taken on the event dispatch thread before the render starts
+ * and never changes afterwards. All fields are final, so the copy can be shared by all threads
+ * of the render pool without synchronization.
+ *
+ * The stop request of the infinite loops is not part of it: it is meant to change during the
+ * render, so it is sent to the running FractalRenderer by cancel().
+ *
+ */
+public final class FractalRenderSpec {
+    
+    // FractalImage: all
+    private final int sizeX;
+    private final int sizeY;
+    private final double xMin;
+    private final double xMax;
+    private final double yMin;
+    private final double yMax;
+    private final BigDecimal preciseXMin;
+    private final BigDecimal preciseXMax;
+    private final BigDecimal preciseYMin;
+    private final BigDecimal preciseYMax;
+    private final double xFix;
+    private final double yFix;
+    private final double maxLength;
+    private final int maxIterations;
+    private final int selectedColorSet;
+    private final String gradient;
+    private final int gradientLength;
+    
+    // raster fractals
+    private final boolean interiorCheck;
+    private final double periodicityTolerance;
+    private final boolean perturbation;
+    private final int renderMode;
+    private final boolean solidGuessing;
+    private final int antialiasing;
+    private final int antialiasingBudget;
+    private final int distanceEstimation;
+    private final int tileCacheSize;
+    private final int diskCacheSize;
+    
+    // NLF and Jumper
+    private final double xStart;
+    private final double yStart;
+    private final double aFix;
+    private final double bFix;
+    private final double aJFix;
+    private final double bJFix;
+    private final double cJFix;
+    private final long range;
+    private final int sleep;
+    private final long count;
+    private final boolean infiniteLoop;
+    
+    // IFS: the coefficients of the functions, already converted to double
+    private final double[] a;
+    private final double[] b;
+    private final double[] c;
+    private final double[] d;
+    private final double[] e;
+    private final double[] f;
+    
+    // the whole image, and the first row of this one in it; a strip is calculated on the pixel grid of the whole image
+    private final FractalRenderSpec wholeImage;
+    private final int rowOffset;
+    
+    /** Creates a new instance of FractalRenderSpec with the current values of fPars */
+    public FractalRenderSpec(FractalParameters fPars) {
+        sizeX = fPars.getSizeX();
+        sizeY = fPars.getSizeY();
+        xMin = fPars.getXMin();
+        xMax = fPars.getXMax();
+        yMin = fPars.getYMin();
+        yMax = fPars.getYMax();
+        preciseXMin = fPars.preciseXMin();
+        preciseXMax = fPars.preciseXMax();
+        preciseYMin = fPars.preciseYMin();
+        preciseYMax = fPars.preciseYMax();
+        xFix = fPars.getXFix();
+        yFix = fPars.getYFix();
+        maxLength = fPars.getMaxLength();
+        maxIterations = fPars.getMaxIterations();
+        selectedColorSet = fPars.getSelectedColorSet();
+        gradient = fPars.getGradient();
+        gradientLength = fPars.getGradientLength();
+        
+        interiorCheck = fPars.isInteriorCheck();
+        periodicityTolerance = fPars.getPeriodicityTolerance();
+        perturbation = fPars.isPerturbation();
+        renderMode = fPars.getRenderMode();
+        solidGuessing = fPars.isSolidGuessing();
+        antialiasing = Math.max(1, fPars.getAntialiasing());
+        antialiasingBudget = Math.max(0, fPars.getAntialiasingBudget());
+        distanceEstimation = fPars.getDistanceEstimation();
+        tileCacheSize = fPars.getTileCacheSize();
+        diskCacheSize = fPars.getDiskCacheSize();
+        
+        xStart = fPars.getXStart();
+        yStart = fPars.getYStart();
+        aFix = fPars.getAFix();
+        bFix = fPars.getBFix();
+        aJFix = fPars.getAJFix();
+        bJFix = fPars.getBJFix();
+        cJFix = fPars.getCJFix();
+        range = fPars.getRange();
+        sleep = fPars.getSleep();
+        count = fPars.getCount();
+        infiniteLoop = fPars.isInfiniteLoop();
+        
+        a = toArray(fPars.a);
+        b = toArray(fPars.b);
+        c = toArray(fPars.c);
+        d = toArray(fPars.d);
+        e = toArray(fPars.e);
+        f = toArray(fPars.f);
+        
+        wholeImage = this;
+        rowOffset = 0;
+    }
+    
+    /** Creates a new instance of FractalRenderSpec for the rows y0 to y0+rows-1 of whole, between yMax and yMin; see strip() */
+    private FractalRenderSpec(FractalRenderSpec whole, int y0, int rows, BigDecimal yMin, BigDecimal yMax) {
+        sizeX = whole.sizeX;
+        sizeY = rows;
+        xMin = whole.xMin;
+        xMax = whole.xMax;
+        this.yMin = yMin.doubleValue();
+        this.yMax = yMax.doubleValue();
+        preciseXMin = whole.preciseXMin;
+        preciseXMax = whole.preciseXMax;
+        preciseYMin = yMin;
+        preciseYMax = yMax;
+        xFix = whole.xFix;
+        yFix = whole.yFix;
+        maxLength = whole.maxLength;
+        maxIterations = whole.maxIterations;
+        selectedColorSet = whole.selectedColorSet;
+        gradient = whole.gradient;
+        gradientLength = whole.gradientLength;
+        
+        interiorCheck = whole.interiorCheck;
+        periodicityTolerance = whole.periodicityTolerance;
+        perturbation = whole.perturbation;
+        renderMode = whole.renderMode;
+        solidGuessing = whole.solidGuessing;
+        antialiasing = whole.antialiasing;
+        antialiasingBudget = whole.antialiasingBudget;
+        distanceEstimation = whole.distanceEstimation;
+        tileCacheSize = whole.tileCacheSize;
+        diskCacheSize = whole.diskCacheSize;
+        
+        xStart = whole.xStart;
+        yStart = whole.yStart;
+        aFix = whole.aFix;
+        bFix = whole.bFix;
+        aJFix = whole.aJFix;
+        bJFix = whole.bJFix;
+        cJFix = whole.cJFix;
+        range = whole.range;
+        sleep = whole.sleep;
+        count = whole.count;
+        infiniteLoop = whole.infiniteLoop;
+        
+        // the arrays are never changed, so the strips can share them
+        a = whole.a;
+        b = whole.b;
+        c = whole.c;
+        d = whole.d;
+        e = whole.e;
+        f = whole.f;
+        
+        wholeImage = whole.wholeImage;
+        rowOffset = whole.rowOffset + y0;
+    }
+    
+    /**
+     * the spec of the rows y0 to y0+rows-1 of this image: the same width and pixel size, with the view
+     * window cut down to these rows. The borders are calculated with BigDecimal, so that the strips of
+     * a deep zoom line up as exactly as the rows of one image. The strip also knows the whole image and
+     * its first row in it, so that a raster fractal calculates its pixels at the same points as the rows
+     * of the whole image (see getWholeImage()).
+     */
+    public FractalRenderSpec strip(int y0, int rows) {
+        BigDecimal height = preciseYMax.subtract(preciseYMin);
+        MathContext mc = FractalParameters.precisionFor(height.divide(BigDecimal.valueOf(sizeY), MathContext.DECIMAL64).abs());
+        BigDecimal yStep = height.divide(BigDecimal.valueOf(sizeY), mc);
+        
+        return new FractalRenderSpec(this, y0, rows,
+                preciseYMax.subtract(yStep.multiply(BigDecimal.valueOf((long)y0 + rows)), mc),
+                preciseYMax.subtract(yStep.multiply(BigDecimal.valueOf(y0)), mc));
+    }
+    
+    /** the IFS table may put strings into the vectors, so convert every element through its string */
+    private static double[] toArray(java.util.List<?> values) {
+        if (values == null) {
+            return new double[0];
+        }
+        double[] array = new double[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = Double.parseDouble(values.get(i).toString());
+        }
+        return array;
+    }
+    
+    public int getSizeX() {
+        return sizeX;
+    }
+    
+    /**
+     * the spec of the whole image that this one is a strip of, or this spec itself. Its borders and size
+     * define the pixel grid: row y of this spec is row getRowOffset() + y of the whole image
+     */
+    public FractalRenderSpec getWholeImage() {
+        return wholeImage;
+    }
+    
+    public int getRowOffset() {
+        return rowOffset;
+    }
+    
+    public int getSizeY() {
+        return sizeY;
+    }
+    
+    public double getXMin() {
+        return xMin;
+    }
+    
+    public double getXMax() {
+        return xMax;
+    }
+    
+    public double getYMin() {
+        return yMin;
+    }
+    
+    public double getYMax() {
+        return yMax;
+    }
+    
+    public BigDecimal preciseXMin() {
+        return preciseXMin;
+    }
+    
+    public BigDecimal preciseXMax() {
+        return preciseXMax;
+    }
+    
+    public BigDecimal preciseYMin() {
+        return preciseYMin;
+    }
+    
+    public BigDecimal preciseYMax() {
+        return preciseYMax;
+    }
+    
+    public double getXFix() {
+        return xFix;
+    }
+    
+    public double getYFix() {
+        return yFix;
+    }
+    
+    public double getMaxLength() {
+        return maxLength;
+    }
+    
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+    
+    /**
+     * true if every point gets the same iteration count with this spec and with the other one,
+     * i.e. the two renders differ only in the view window, the size and the colors; with distance
+     * estimation, the values are measured in pixels, so the pixels must have the same size as well
+     */
+    public boolean sameIterationCounts(FractalRenderSpec other) {
+        return maxIterations == other.maxIterations && maxLength == other.maxLength
+                && xFix == other.xFix && yFix == other.yFix
+                && interiorCheck == other.interiorCheck && periodicityTolerance == other.periodicityTolerance
+                && perturbation == other.perturbation && distanceEstimation == other.distanceEstimation
+                && (distanceEstimation == 0 || Math.abs(pixelWidth() - other.pixelWidth()) <= 1.0E-9D * Math.abs(pixelWidth()));
+    }
+    
+    /** true if pixels are guessed (progressive refinement with solid guessing), so that some iteration counts may be wrong */
+    public boolean isGuessed() {
+        return solidGuessing && renderMode != 2 && renderMode != 3;
+    }
+    
+    /** the parameters compared by sameIterationCounts(), as text (e.g. for the keys of the tile cache, which also contain the pixel size) */
+    public String getIterationKey() {
+        return maxIterations + "," + maxLength + "," + xFix + "," + yFix + ","
+                + interiorCheck + "," + periodicityTolerance + "," + perturbation + "," + distanceEstimation;
+    }
+    
+    /** the width of a pixel on the complex plane */
+    private double pixelWidth() {
+        return (xMax - xMin) / sizeX;
+    }
+    
+    public int getSelectedColorSet() {
+        return selectedColorSet;
+    }
+    
+    public String getGradient() {
+        return gradient;
+    }
+    
+    public int getGradientLength() {
+        return gradientLength;
+    }
+    
+    public boolean isInteriorCheck() {
+        return interiorCheck;
+    }
+    
+    public double getPeriodicityTolerance() {
+        return periodicityTolerance;
+    }
+    
+    public boolean isPerturbation() {
+        return perturbation;
+    }
+    
+    public int getRenderMode() {
+        return renderMode;
+    }
+    
+    public boolean isSolidGuessing() {
+        return solidGuessing;
+    }
+    
+    /** the samples per axis of an antialiased pixel; 1 = no antialiasing */
+    public int getAntialiasing() {
+        return antialiasing;
+    }
+    
+    /** the extra samples of the antialiasing, in percent of the pixels */
+    public int getAntialiasingBudget() {
+        return antialiasingBudget;
+    }
+    
+    /** 0 = no distance estimation, 1 = boundary, 2 = distance colors (see FractalParameters) */
+    public int getDistanceEstimation() {
+        return distanceEstimation;
+    }
+    
+    public int getTileCacheSize() {
+        return tileCacheSize;
+    }
+    
+    public int getDiskCacheSize() {
+        return diskCacheSize;
+    }
+    
+    public double getXStart() {
+        return xStart;
+    }
+    
+    public double getYStart() {
+        return yStart;
+    }
+    
+    public double getAFix() {
+        return aFix;
+    }
+    
+    public double getBFix() {
+        return bFix;
+    }
+    
+    public double getAJFix() {
+        return aJFix;
+    }
+    
+    public double getBJFix() {
+        return bJFix;
+    }
+    
+    public double getCJFix() {
+        return cJFix;
+    }
+    
+    public long getRange() {
+        return range;
+    }
+    
+    public int getSleep() {
+        return sleep;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public boolean isInfiniteLoop() {
+        return infiniteLoop;
+    }
+    
+    /** the IFS coefficients of function k */
+    public double getA(int k) {
+        return a[k];
+    }
+    
+    public double getB(int k) {
+        return b[k];
+    }
+    
+    public double getC(int k) {
+        return c[k];
+    }
+    
+    public double getD(int k) {
+        return d[k];
+    }
+    
+    public double getE(int k) {
+        return e[k];
+    }
+    
+    public double getF(int k) {
+        return f[k];
+    }
+}
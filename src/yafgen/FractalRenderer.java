@@ -0,0 +1,297 @@
+/*
+ * FractalRenderer.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+import java.awt.*;
+import java.awt.image.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *
+ * FractalRenderer is the base class of all fractals. It calculates the image of a fractal
+ * for a FractalRenderSpec, without any user interface: render() fills the pixel buffer (and,
+ * for the raster fractals, the iteration counts) and returns the image. Everyone who wants
+ * to follow the render, e.g. the window, registers a FractalRenderListener.
+ *
+ * FractalImage shows a renderer on the screen; YaFGenBatch and RenderBenchmark use it directly.
+ *
+ */
+public abstract class FractalRenderer {
+    
+    /** the parameters of the current render; fixed when render() starts */
+    protected FractalRenderSpec spec;
+    
+    /** the color of every iteration count in the current render */
+    protected FractalPalette palette;
+    
+    /** we paint into this buffered image; it is created when render() starts */
+    protected BufferedImage bufferedImage;
+    protected Graphics2D graphics;
+    /** the pixels of the buffered image, packed as ARGB ints; one row after the other */
+    protected int[] pixels;
+    
+    /**
+     * the iteration count of every pixel, one row after the other; -1 if not calculated yet.
+     * It is kept next to the image, so that the image can be recolored without calculating it again;
+     * null for fractals that are not drawn by iteration counts.
+     */
+    protected int[] iterations;
+    
+    /** thread pool shared by all fractals, with one worker per processor */
+    protected static final ForkJoinPool renderPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    
+    /** rows of the image that are recolored by one worker */
+    private static final int RECOLOR_ROWS = 16;
+    
+    /** the renderer of the image that was shown before this one; a subclass may reuse its pixels when the render starts */
+    protected FractalRenderer previous;
+    
+    /** set by cancel(), or when the render thread was interrupted; the calculation returns as soon as it sees it */
+    protected volatile boolean cancelled = false;
+    
+    protected volatile boolean finishedDrawing = false;
+    
+    private final List<FractalRenderListener> listeners = new CopyOnWriteArrayList<FractalRenderListener>();
+    
+    /** Creates a new instance of FractalRenderer */
+    public FractalRenderer() {
+    }
+    
+    /**
+     * the renderer of a fractal type, as stored in FractalParameters.currentFractalType;
+     * null for an unknown type
+     */
+    public static FractalRenderer forType(int fractalType) {
+        switch (fractalType) {
+            case 1:
+                return new FractalMandelbrot();
+            case 2:
+                return new FractalJulia();
+            case 3:
+                return new FractalIFS();
+            case 4:
+                return new FractalNLF();
+            case 5:
+                return new FractalJumper();
+            case 6:
+                return new FractalManowar();
+            case 7:
+                return new FractalBuddhabrot(false);
+            case 8:
+                return new FractalBuddhabrot(true);
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * calculate the image of the spec in the calling thread, and return it; null if the fractal
+     * could not be calculated (e.g. an overflow of an iteration function). The listeners are told
+     * when the render starts, whenever a part of the image is ready, and when it is finished.
+     */
+    public BufferedImage render(FractalRenderSpec spec) {
+        this.spec = spec;
+        palette = new FractalPalette(spec);
+        cancelled = false;
+        finishedDrawing = false;
+        createBufferedImage();
+        
+        for (FractalRenderListener listener : listeners) {
+            listener.renderStarted(this);
+        }
+        
+        BufferedImage image = doWork();
+        
+        // the previous image is only needed while the render starts; keeping it would chain every image shown before
+        previous = null;
+        
+        // we are done with the entire image, so set the flag
+        finishedDrawing = true;
+        for (FractalRenderListener listener : listeners) {
+            listener.renderFinished(this);
+        }
+        return image;
+    }
+    
+    /** create the buffered image in the size of the current render; its pixels can be written directly through the array 'pixels' */
+    protected void createBufferedImage() {
+        bufferedImage = new BufferedImage(spec.getSizeX(), spec.getSizeY(), BufferedImage.TYPE_INT_RGB);
+        graphics = bufferedImage.createGraphics();
+        pixels = ((DataBufferInt) bufferedImage.getRaster().getDataBuffer()).getData();
+    }
+    
+    /** abstract method that does the calculation of the fractal; returns the image, or null if it failed */
+    protected abstract BufferedImage doWork();
+    
+    /** stop the current render; render() returns with the part of the image that is done */
+    public void cancel() {
+        cancelled = true;
+    }
+    
+    /** tell the listeners that a part of the image is ready, e.g. a preview pass */
+    protected void fireImageUpdated() {
+        for (FractalRenderListener listener : listeners) {
+            listener.imageUpdated(this);
+        }
+    }
+    
+    public void addRenderListener(FractalRenderListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeRenderListener(FractalRenderListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /** the image of the current (or last) render; null before the first render */
+    public BufferedImage getBufferedImage() {
+        return bufferedImage;
+    }
+    
+    /** the graphics of the image, e.g. to draw the zoom rectangle over it; null before the first render */
+    public Graphics2D getGraphics() {
+        return graphics;
+    }
+    
+    /** the parameters of the current (or last) render; null before the first render */
+    public FractalRenderSpec getSpec() {
+        return spec;
+    }
+    
+    public boolean getFinishedDrawing() {
+        return finishedDrawing;
+    }
+    
+    /** remember the renderer of the image that this one replaces, e.g. after a zoom or pan */
+    public void setPrevious(FractalRenderer previous) {
+        this.previous = previous;
+    }
+    
+    /**
+     * color the finished image again with the given color set, from the iteration counts of the
+     * last render; nothing is calculated. Returns false if that is not possible, because the
+     * fractal has no iteration counts or is still drawing; then the colors change with the next render.
+     */
+    public boolean recolor(int colorSet, String gradient, int gradientLength) {
+        if (iterations == null || !finishedDrawing) {
+            return false;
+        }
+        
+        long startTime = System.currentTimeMillis();
+        
+        // only the colors change; the iteration counts belong to the view window of the frozen spec
+        palette = new FractalPalette(colorSet, gradient, gradientLength, spec.getMaxIterations());
+        renderPool.invoke(new RecolorRows(0, bufferedImage.getHeight()));
+        
+        System.out.println( this.getClass() + ": recolored after " + (System.currentTimeMillis() - startTime) + " ms");
+        return true;
+    }
+    
+    protected int calcNewColorPixel( final int oldCol ) {
+        int redCol, greenCol, blueCol;
+        
+        // find out the red/green/blue components
+        redCol   = new Color(oldCol).getRed();
+        greenCol = new Color(oldCol).getGreen();
+        blueCol  = new Color(oldCol).getBlue();
+        
+        // now manipulate the rgb components/colors for the new pixel
+        //redCol = (redCol+10)%256;
+        //greenCol = (greenCol+20)%256;
+        
+        switch( spec.getSelectedColorSet() ) {
+            case 1:
+                redCol = (redCol+1)%256;
+                greenCol = (greenCol+15)%256;
+                blueCol = (blueCol+30)%256;
+                break;
+                
+            case 2:
+                redCol = (redCol+20)%256;
+                greenCol = (greenCol+15)%256;
+                blueCol = (blueCol+10)%256;
+                break;
+                
+            case 3:
+                redCol = (redCol+20)%256;
+                greenCol = (greenCol+1)%256;
+                blueCol = (blueCol+30)%256;
+                break;
+                
+            case 4:
+                redCol = (redCol+1)%256;
+                greenCol = (greenCol+1)%256;
+                blueCol = (blueCol+15)%256;
+                break;
+                
+            default:
+                redCol = (redCol+1)%256;
+                greenCol = (greenCol+15)%256;
+                blueCol = (blueCol+30)%256;
+                
+        }
+        
+        return( new Color(redCol, greenCol, blueCol).getRGB() );
+        
+    }
+    
+    /** color the rows y0 (included) to y1 (excluded) with the palette; called by the workers of recolor() */
+    protected void recolorRows(int y0, int y1) {
+        int width = bufferedImage.getWidth();
+        for (int index = y0 * width; index < y1 * width; index++) {
+            // pixels that were not calculated (e.g. after an interrupt) keep their color
+            if (iterations[index] >= 0) {
+                pixels[index] = palette.getRGB(iterations[index]);
+            }
+        }
+    }
+    
+    /** RecolorRows colors the rows y0 (included) to y1 (excluded) with the palette, splitting them among the workers */
+    private class RecolorRows extends RecursiveAction {
+        
+        private final int y0, y1;
+        
+        RecolorRows(int y0, int y1) {
+            this.y0 = y0;
+            this.y1 = y1;
+        }
+        
+        protected void compute() {
+            if (y1 - y0 > RECOLOR_ROWS) {
+                int ym = (y0 + y1) / 2;
+                invokeAll(new RecolorRows(y0, ym), new RecolorRows(ym, y1));
+                return;
+            }
+            
+            recolorRows(y0, y1);
+        }
+    }
+}
\ No newline at end of file
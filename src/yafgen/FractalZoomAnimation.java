@@ -0,0 +1,125 @@
+/*
+ * FractalZoomAnimation.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * FractalZoomAnimation zooms from the view of one parameter file to the view of another.
+ * Everything else (fractal type, colors, image size) comes from the first file; both files
+ * should therefore show the same fractal.
+ *
+ * The zoom is exponential: every frame shrinks the window by the same factor r^(1/(frames-1)),
+ * where r is the ratio of the end width to the start width, so the zoom looks steady even over
+ * many powers of ten. The center moves so that the point both windows have in common keeps its
+ * place on the screen: c(t) = c1 + (c0 - c1) * (r^t - r) / (1 - r). Both axes are handled this
+ * way, and everything is calculated with BigDecimal, so that deep zooms keep their digits.
+ *
+ * All frames use the larger iteration limit of the two files, so that a deep zoom can share
+ * the reference orbit of FractalMandelbrot between the frames.
+ */
+public class FractalZoomAnimation extends FractalAnimation {
+    
+    private final BigDecimal centerX0, centerY0, width0, height0;
+    private final BigDecimal centerX1, centerY1, width1, height1;
+    /** enough digits for the smallest pixel of the animation */
+    private final MathContext mc;
+    
+    /** Creates a new instance of FractalZoomAnimation from the view of fPars to the view of end */
+    public FractalZoomAnimation(FractalParameters fPars, FractalParameters end, int frames) {
+        super(fPars, frames);
+        
+        BigDecimal two = BigDecimal.valueOf(2);
+        width0 = fPars.preciseXMax().subtract(fPars.preciseXMin());
+        height0 = fPars.preciseYMax().subtract(fPars.preciseYMin());
+        width1 = end.preciseXMax().subtract(end.preciseXMin());
+        height1 = end.preciseYMax().subtract(end.preciseYMin());
+        if (width0.signum() <= 0 || height0.signum() <= 0 || width1.signum() <= 0 || height1.signum() <= 0) {
+            throw new IllegalArgumentException("the start and end views must not be empty");
+        }
+        
+        mc = FractalParameters.precisionFor(
+                width0.min(width1).divide(BigDecimal.valueOf(fPars.getSizeX()), MathContext.DECIMAL64)
+                .min(height0.min(height1).divide(BigDecimal.valueOf(fPars.getSizeY()), MathContext.DECIMAL64)));
+        centerX0 = fPars.preciseXMin().add(fPars.preciseXMax()).divide(two, mc);
+        centerY0 = fPars.preciseYMin().add(fPars.preciseYMax()).divide(two, mc);
+        centerX1 = end.preciseXMin().add(end.preciseXMax()).divide(two, mc);
+        centerY1 = end.preciseYMin().add(end.preciseYMax()).divide(two, mc);
+        
+        fPars.setMaxIterations(Math.max(fPars.getMaxIterations(), end.getMaxIterations()));
+    }
+    
+    protected void setFrame(int frame) {
+        double t = (frames > 1) ? frame / (double)(frames - 1) : 0;
+        BigDecimal two = BigDecimal.valueOf(2);
+        
+        BigDecimal halfWidth = scale(width0, width1, t).divide(two, mc);
+        BigDecimal halfHeight = scale(height0, height1, t).divide(two, mc);
+        BigDecimal centerX = center(centerX0, centerX1, width0, width1, t);
+        BigDecimal centerY = center(centerY0, centerY1, height0, height1, t);
+        
+        fPars.setPreciseWindow(centerX.subtract(halfWidth, mc), centerX.add(halfWidth, mc),
+                centerY.subtract(halfHeight, mc), centerY.add(halfHeight, mc));
+    }
+    
+    /** size0 * (size1/size0)^t; the power is split into a power of ten and a double, so it cannot underflow */
+    private BigDecimal scale(BigDecimal size0, BigDecimal size1, double t) {
+        if (t <= 0) {
+            return size0;
+        }
+        if (t >= 1) {
+            return size1;
+        }
+        double exponent = t * (log10(size1) - log10(size0));
+        double powerOfTen = Math.floor(exponent);
+        BigDecimal factor = new BigDecimal(Math.pow(10, exponent - powerOfTen)).scaleByPowerOfTen((int)powerOfTen);
+        return size0.multiply(factor, mc);
+    }
+    
+    /** the center of the frame at t, between the centers c0 and c1 of the views with the sizes size0 and size1 */
+    private BigDecimal center(BigDecimal c0, BigDecimal c1, BigDecimal size0, BigDecimal size1, double t) {
+        BigDecimal ratio = size1.divide(size0, mc);
+        BigDecimal share;
+        if (ratio.compareTo(BigDecimal.ONE) == 0) {
+            // no zoom at all: the center moves steadily
+            share = new BigDecimal(1 - t);
+        } else {
+            // the part of the way to c1 that is still left: (r^t - r) / (1 - r)
+            share = scale(size0, size1, t).divide(size0, mc).subtract(ratio).divide(BigDecimal.ONE.subtract(ratio), mc);
+        }
+        return c1.add(c0.subtract(c1).multiply(share, mc), mc);
+    }
+    
+    /** the decimal logarithm of a positive number, also beyond the range of double */
+    private static double log10(BigDecimal value) {
+        BigDecimal rounded = value.round(MathContext.DECIMAL64);
+        return Math.log10(rounded.unscaledValue().doubleValue()) - rounded.scale();
+    }
+}
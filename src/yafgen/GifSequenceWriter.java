@@ -0,0 +1,128 @@
+/*
+ * GifSequenceWriter.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * GifSequenceWriter writes images one after the other as the frames of an animated GIF file,
+ * which loops endlessly. The GIF writer of ImageIO reduces every frame to its own palette of
+ * 256 colors.
+ */
+public class GifSequenceWriter {
+    
+    private static final String METADATA_FORMAT = "javax_imageio_gif_image_1.0";
+    
+    private final ImageWriter writer;
+    private final ImageOutputStream out;
+    /** the time every frame is shown, in 1/100 seconds */
+    private final int delay;
+    private boolean firstFrame = true;
+    
+    /** Creates a new instance of GifSequenceWriter, writing to the file with the given frames per second */
+    public GifSequenceWriter(File file, int framesPerSecond) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersBySuffix("gif");
+        if (!writers.hasNext()) {
+            throw new IOException("no GIF writer available");
+        }
+        writer = writers.next();
+        
+        // delete an old, longer file; otherwise its end would stay behind the new one
+        if (file.exists() && !file.delete()) {
+            throw new IOException("cannot replace " + file);
+        }
+        out = ImageIO.createImageOutputStream(file);
+        if (out == null) {
+            throw new IOException("cannot write " + file);
+        }
+        writer.setOutput(out);
+        writer.prepareWriteSequence(null);
+        delay = Math.max(1, Math.round(100f / Math.max(1, framesPerSecond)));
+    }
+    
+    /** append an image as the next frame */
+    public void writeFrame(BufferedImage image) throws IOException {
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), param);
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(METADATA_FORMAT);
+        
+        IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("delayTime", Integer.toString(delay));
+        control.setAttribute("transparentColorIndex", "0");
+        
+        if (firstFrame) {
+            // the Netscape extension lets the animation loop; 0 repetitions means endless
+            IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            loop.setUserObject(new byte[] { 1, 0, 0 });
+            child(root, "ApplicationExtensions").appendChild(loop);
+            firstFrame = false;
+        }
+        
+        metadata.setFromTree(METADATA_FORMAT, root);
+        writer.writeToSequence(new IIOImage(image, null, metadata), param);
+    }
+    
+    /** end the animation, and close the file */
+    public void close() throws IOException {
+        try {
+            writer.endWriteSequence();
+        } finally {
+            out.close();
+            writer.dispose();
+        }
+    }
+    
+    /** the child node of the metadata with that name; it is created if it is missing */
+    private static IIOMetadataNode child(IIOMetadataNode root, String name) {
+        for (int i = 0; i < root.getLength(); i++) {
+            if (root.item(i).getNodeName().equalsIgnoreCase(name)) {
+                return (IIOMetadataNode) root.item(i);
+            }
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        root.appendChild(node);
+        return node;
+    }
+}
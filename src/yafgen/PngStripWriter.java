@@ -0,0 +1,158 @@
+/*
+ * PngStripWriter.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PngStripWriter writes a PNG image (8 bit RGB) row by row, so that the whole image never has to
+ * be in memory: the header is written when it is created, every call of writeRows() compresses
+ * the rows it gets and writes the IDAT chunks that are full, and close() ends the image.
+ *
+ * The rows are written with the filter 'Sub' (the difference to the pixel on the left), which
+ * suits the large areas of slowly changing color of a fractal.
+ */
+public class PngStripWriter {
+    
+    private static final byte[] SIGNATURE = { (byte)137, 80, 78, 71, 13, 10, 26, 10 };
+    
+    /** the size of the IDAT chunks */
+    private static final int CHUNK_SIZE = 1 << 18;
+    
+    private static final int FILTER_SUB = 1;
+    
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private int rowsWritten = 0;
+    
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final CRC32 crc = new CRC32();
+    
+    /** one filtered row: the filter type, then three bytes per pixel */
+    private final byte[] row;
+    /** the compressed data of the next IDAT chunk */
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkLength = 0;
+    
+    /** Creates a new instance of PngStripWriter, and writes the header of an image of width x height pixels */
+    public PngStripWriter(OutputStream out, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0 || width > (Integer.MAX_VALUE - 1) / 3) {
+            throw new IllegalArgumentException("invalid image size " + width + "x" + height);
+        }
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        row = new byte[1 + 3 * width];
+        
+        this.out.write(SIGNATURE);
+        
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(width);
+        headerData.writeInt(height);
+        headerData.write(8);    // bit depth
+        headerData.write(2);    // color type RGB
+        headerData.write(0);    // compression: deflate
+        headerData.write(0);    // filter method
+        headerData.write(0);    // no interlace
+        writeChunk("IHDR", header.toByteArray(), header.size());
+    }
+    
+    /** write the next rows of the image; pixels holds them one after the other as (A)RGB ints, starting at offset */
+    public void writeRows(int[] pixels, int offset, int rows) throws IOException {
+        if (rowsWritten + rows > height) {
+            throw new IllegalStateException("the image has only " + height + " rows");
+        }
+        
+        for (int y = 0; y < rows; y++) {
+            row[0] = FILTER_SUB;
+            int left = 0;
+            int index = offset + y * width;
+            for (int x = 0, i = 1; x < width; x++, i += 3) {
+                int rgb = pixels[index + x];
+                row[i]     = (byte)((rgb >> 16) - (left >> 16));
+                row[i + 1] = (byte)((rgb >> 8) - (left >> 8));
+                row[i + 2] = (byte)(rgb - left);
+                left = rgb;
+            }
+            
+            deflater.setInput(row);
+            while (!deflater.needsInput()) {
+                deflate();
+            }
+        }
+        rowsWritten += rows;
+    }
+    
+    /** write the rest of the compressed data and the end of the image; all rows must have been written */
+    public void close() throws IOException {
+        if (rowsWritten != height) {
+            throw new IllegalStateException("only " + rowsWritten + " of " + height + " rows were written");
+        }
+        
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflate();
+        }
+        deflater.end();
+        if (chunkLength > 0) {
+            writeChunk("IDAT", chunk, chunkLength);
+        }
+        writeChunk("IEND", chunk, 0);
+        out.flush();
+        out.close();
+    }
+    
+    /** compress into the current chunk, and write it when it is full */
+    private void deflate() throws IOException {
+        chunkLength += deflater.deflate(chunk, chunkLength, CHUNK_SIZE - chunkLength);
+        if (chunkLength == CHUNK_SIZE) {
+            writeChunk("IDAT", chunk, chunkLength);
+            chunkLength = 0;
+        }
+    }
+    
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes("US-ASCII");
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int)crc.getValue());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * ReferenceOrbit.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ *
+ * ReferenceOrbit is the orbit z[n+1] := z[n]^2 + c, z[0] := 0 of one point c of the Mandelbrot set,
+ * calculated with BigDecimal in the precision of a deep zoom. The values are stored rounded to
+ * double, which is all that perturbation needs: the pixels around c are iterated as small
+ * double deltas from this orbit (see FractalMandelbrot).
+ *
+ * The orbit ends when it escapes, or after maxIterations steps.
+ *
+ */
+public class ReferenceOrbit {
+    
+    private double[] orbitX;
+    private double[] orbitY;
+    private int length;
+    
+    /** Creates a new instance of ReferenceOrbit */
+    public ReferenceOrbit(BigDecimal cx, BigDecimal cy, int maxIterations, double maxLength, MathContext mc) {
+        orbitX = new double[maxIterations + 1];
+        orbitY = new double[maxIterations + 1];
+        
+        BigDecimal zx = BigDecimal.ZERO, zy = BigDecimal.ZERO;
+        BigDecimal two = BigDecimal.valueOf(2);
+        
+        for (int n = 0; ; n++) {
+            orbitX[n] = zx.doubleValue();
+            orbitY[n] = zy.doubleValue();
+            
+            if (n == maxIterations || orbitX[n]*orbitX[n] + orbitY[n]*orbitY[n] > maxLength) {
+                length = n + 1;
+                break;
+            }
+            
+            BigDecimal zx2 = zx.multiply(zx, mc);
+            BigDecimal zy2 = zy.multiply(zy, mc);
+            zy = two.multiply(zx).multiply(zy, mc).add(cy, mc);
+            zx = zx2.subtract(zy2, mc).add(cx, mc);
+        }
+    }
+    
+    /** real parts of z[0] ... z[length-1] */
+    public double[] getOrbitX() {
+        return orbitX;
+    }
+    
+    /** imaginary parts of z[0] ... z[length-1] */
+    public double[] getOrbitY() {
+        return orbitY;
+    }
+    
+    /** the number of stored values; the last one has escaped, unless the orbit reached maxIterations */
+    public int getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * RenderBenchmark.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+
+package yafgen;
+import java.awt.*;
+import java.awt.image.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.imageio.ImageIO;
+
+/**
+ *
+ * RenderBenchmark measures how fast the pixels of a raster fractal can be calculated and
+ * written into the image. It does not need a window, so it can be run with
+ *
+ *     java -cp YaFGen.jar yafgen.RenderBenchmark [sizeX sizeY maxIterations]
+ *
+ * The tests run in this order, all for the default parameters:
+ *   - the Mandelbrot set is calculated, and every pixel is written once with Graphics.fillRect()
+ *     into a TYPE_USHORT_555_RGB image (as YaFGen 1.2 did), and once directly into the int array
+ *     of a TYPE_INT_RGB image.
+ *   - the iteration is timed with and without the main cardioid/bulb check.
+ *   - FractalMandelbrot, then FractalJulia, is rendered in every render mode (and with solid
+ *     guessing), and the iteration counts are compared with the brute force result of
+ *     progressive refinement.
+ *   - the Mandelbrot set is written as a poster in strips (see FractalPoster), without and with
+ *     antialiasing, and the pixels are compared with a render of the whole image.
+ *   - the scalar Mandelbrot, then Julia, kernel is compared with the one that iterates
+ *     four pixels side by side.
+ *   - the iteration counts of a Mandelbrot render are colored with the HSB formula per pixel,
+ *     and with the lookup table of FractalPalette.
+ *
+ */
+public class RenderBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    /** the strips of the poster test; not a multiple of the tile size, so that the seams cut through the tiles */
+    private static final int POSTER_STRIP_ROWS = 100;
+
+    private FractalParameters fPars;
+
+    /** Creates a new instance of RenderBenchmark */
+    public RenderBenchmark(FractalParameters myFPars) {
+        fPars = myFPars;
+    }
+
+    public static void main(String[] args) {
+        FractalParameters fPars = new FractalParameters();
+        fPars.setDefaultParameters(null);
+        fPars.setSizeX(args.length > 0 ? Integer.parseInt(args[0]) : 1920);
+        fPars.setSizeY(args.length > 1 ? Integer.parseInt(args[1]) : 1200);
+        fPars.setMaxIterations(args.length > 2 ? Integer.parseInt(args[2]) : 100);
+        // every round renders the same view, which must not come from the tile caches
+        fPars.setTileCacheSize(0);
+        fPars.setDiskCacheSize(0);
+
+        RenderBenchmark benchmark = new RenderBenchmark(fPars);
+        benchmark.runRasterOutput();
+        benchmark.runInteriorCheck();
+        benchmark.runRenderModes(1);
+        benchmark.runRenderModes(2);
+        benchmark.runPosterStrips();
+        benchmark.runLaneKernels(1);
+        benchmark.runLaneKernels(2);
+        benchmark.runPalette();
+    }
+
+    /** compare the old output path (Graphics.fillRect per pixel) with the direct int[] raster */
+    public void runRasterOutput() {
+        System.out.println("Raster output, " + fPars.getSizeX() + "x" + fPars.getSizeY() + ", maxIterations " + fPars.getMaxIterations());
+
+        double fillRect = measure(true);
+        double raster = measure(false);
+
+        System.out.println("  Graphics.fillRect: " + Math.round(fillRect) + " pixels/sec");
+        System.out.println("  int[] raster:      " + Math.round(raster) + " pixels/sec");
+        System.out.println("  speedup:           " + Math.round(raster / fillRect * 100.0) / 100.0 + "x");
+    }
+
+    /** count the pixels that skip the iteration because of the cardioid/bulb check, and compare the timing */
+    public void runInteriorCheck() {
+        double xStep = (fPars.getXMax() - fPars.getXMin())/(double)fPars.getSizeX();
+        double yStep = (fPars.getYMax() - fPars.getYMin())/(double)fPars.getSizeY();
+        long skipped = 0, different = 0;
+
+        for (int loopY = 0; loopY < fPars.getSizeY(); loopY++) {
+            for (int loopX = 0; loopX < fPars.getSizeX(); loopX++) {
+                double x = fPars.getXMin() + loopX * xStep;
+                double y = fPars.getYMax() - loopY * yStep;
+                if (FractalMandelbrot.isInMainCardioidOrBulb(x, y)) {
+                    skipped++;
+                    if (doIteration(x, y) != fPars.getMaxIterations()) {
+                        different++;
+                    }
+                }
+            }
+        }
+
+        long total = (long)fPars.getSizeX() * fPars.getSizeY();
+        System.out.println("Interior check, " + fPars.getSizeX() + "x" + fPars.getSizeY() + ", maxIterations " + fPars.getMaxIterations());
+        System.out.println("  skipped pixels:    " + skipped + " of " + total + " (" + Math.round(skipped * 100.0 / total) + "%), " + different + " differ from the full iteration");
+
+        fPars.setInteriorCheck(false);
+        double plain = measureIteration();
+        fPars.setInteriorCheck(true);
+        double checked = measureIteration();
+
+        System.out.println("  without check:     " + Math.round(plain) + " pixels/sec");
+        System.out.println("  with check:        " + Math.round(checked) + " pixels/sec");
+    }
+
+    /** render the fractal type (1 = Mandelbrot, 2 = Julia) in every render mode, and compare the results */
+    public void runRenderModes(int fractalType) {
+        System.out.println("Render modes, " + (fractalType == 1 ? "Mandelbrot" : "Julia") + ", " + fPars.getSizeX() + "x" + fPars.getSizeY() + ", maxIterations " + fPars.getMaxIterations());
+
+        String[] names = { "progressive refinement:", "solid guessing:        ", "rectangle subdivision: ", "boundary tracing:      " };
+        int[] renderModes = { 1, 1, 2, 3 };
+        int oldRenderMode = fPars.getRenderMode();
+        boolean oldSolidGuessing = fPars.isSolidGuessing();
+        int[] bruteForce = null;
+
+        for (int variant = 0; variant < names.length; variant++) {
+            fPars.setRenderMode(renderModes[variant]);
+            // only the first variant calculates every pixel
+            fPars.setSolidGuessing(variant == 1);
+            long best = Long.MAX_VALUE;
+            FractalRasterIteration fractal = null;
+
+            for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+                // no viewer: the fractal is only rendered into its buffered image
+                if (fractalType == 1) {
+                    fractal = new FractalMandelbrot();
+                } else {
+                    fractal = new FractalJulia();
+                }
+                long start = System.nanoTime();
+                fractal.render(new FractalRenderSpec(fPars));
+                long time = System.nanoTime() - start;
+                if (round >= WARMUP_ROUNDS) {
+                    best = Math.min(best, time);
+                }
+            }
+
+            String result = "";
+            if (bruteForce == null) {
+                // progressive refinement without guessing calculates every pixel, so it is the reference
+                bruteForce = fractal.iterations;
+            } else {
+                int different = 0;
+                for (int i = 0; i < bruteForce.length; i++) {
+                    if (fractal.iterations[i] != bruteForce[i]) {
+                        different++;
+                    }
+                }
+                result = ", " + different + " pixels differ";
+            }
+            System.out.println("  " + names[variant] + " " + Math.round(best / 1.0E6) + " ms" + result);
+        }
+
+        fPars.setRenderMode(oldRenderMode);
+        fPars.setSolidGuessing(oldSolidGuessing);
+    }
+
+    /**
+     * render the Mandelbrot set as a poster in strips, and compare its pixels with a render of the whole
+     * image; with antialiasing, the budget covers every edge, so that all strips antialias the same edges
+     */
+    public void runPosterStrips() {
+        System.out.println("Poster strips, Mandelbrot, " + fPars.getSizeX() + "x" + fPars.getSizeY() + ", maxIterations " + fPars.getMaxIterations() + ", strips of " + POSTER_STRIP_ROWS + " rows");
+
+        String[] names = { "no antialiasing:", "antialiasing 3x3:" };
+        int[] antialiasings = { 1, 3 };
+        int oldAntialiasing = fPars.getAntialiasing();
+        int oldAntialiasingBudget = fPars.getAntialiasingBudget();
+        fPars.setAntialiasingBudget(100000);
+
+        for (int variant = 0; variant < names.length; variant++) {
+            fPars.setAntialiasing(antialiasings[variant]);
+            FractalRenderSpec spec = new FractalRenderSpec(fPars);
+            BufferedImage whole = new FractalMandelbrot().render(spec);
+
+            File png = null;
+            try {
+                png = File.createTempFile("RenderBenchmark", ".png");
+                long start = System.nanoTime();
+                new FractalPoster(new FractalMandelbrot(), spec, POSTER_STRIP_ROWS).write(png);
+                long time = System.nanoTime() - start;
+                BufferedImage poster = ImageIO.read(png);
+
+                int different = 0;
+                for (int loopY = 0; loopY < fPars.getSizeY(); loopY++) {
+                    for (int loopX = 0; loopX < fPars.getSizeX(); loopX++) {
+                        if ((poster.getRGB(loopX, loopY) & 0xFFFFFF) != (whole.getRGB(loopX, loopY) & 0xFFFFFF)) {
+                            different++;
+                        }
+                    }
+                }
+                System.out.println("  " + names[variant] + " " + Math.round(time / 1.0E6) + " ms, " + different + " pixels differ from the whole image");
+            } catch (IOException iOE) {
+                System.out.println("  " + names[variant] + " " + iOE);
+            } catch (InterruptedException iE) {
+                System.out.println("  " + names[variant] + " " + iE);
+            } finally {
+                if (png != null) {
+                    png.delete();
+                }
+            }
+        }
+
+        fPars.setAntialiasing(oldAntialiasing);
+        fPars.setAntialiasingBudget(oldAntialiasingBudget);
+    }
+
+    /** iterate every column of the image with doIteration() and with doIterations(), and compare speed and results */
+    public void runLaneKernels(int fractalType) {
+        System.out.println("Lane kernels, " + (fractalType == 1 ? "Mandelbrot" : "Julia") + ", " + fPars.getSizeX() + "x" + fPars.getSizeY() + ", maxIterations " + fPars.getMaxIterations());
+
+        FractalRasterIteration fractal;
+        if (fractalType == 1) {
+            fractal = new FractalMandelbrot();
+        } else {
+            fractal = new FractalJulia();
+        }
+        // the kernels are called without render(), so they need the parameters of a render
+        fractal.spec = new FractalRenderSpec(fPars);
+
+        int sizeX = fPars.getSizeX(), sizeY = fPars.getSizeY();
+        double xStep = (fPars.getXMax() - fPars.getXMin())/(double)sizeX;
+        double yStep = (fPars.getYMax() - fPars.getYMin())/(double)sizeY;
+        double[] x = new double[sizeY];
+        double[] y = new double[sizeY];
+        int[] scalar = new int[sizeY];
+        int[] lanes = new int[sizeY];
+        long bestScalar = Long.MAX_VALUE, bestLanes = Long.MAX_VALUE;
+        long different = 0;
+
+        for (int loopY = 0; loopY < sizeY; loopY++) {
+            y[loopY] = fPars.getYMax() - loopY * yStep;
+        }
+
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long timeScalar = 0, timeLanes = 0;
+            different = 0;
+
+            for (int loopX = 0; loopX < sizeX; loopX++) {
+                Arrays.fill(x, fPars.getXMin() + loopX * xStep);
+
+                long start = System.nanoTime();
+                for (int loopY = 0; loopY < sizeY; loopY++) {
+                    scalar[loopY] = fractal.doIteration(x[loopY], y[loopY]);
+                }
+                timeScalar += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                fractal.doIterations(x, y, lanes, sizeY);
+                timeLanes += System.nanoTime() - start;
+
+                for (int loopY = 0; loopY < sizeY; loopY++) {
+                    if (scalar[loopY] != lanes[loopY]) {
+                        different++;
+                    }
+                }
+            }
+
+            if (round >= WARMUP_ROUNDS) {
+                bestScalar = Math.min(bestScalar, timeScalar);
+                bestLanes = Math.min(bestLanes, timeLanes);
+            }
+        }
+
+        System.out.println("  one pixel at a time:   " + Math.round(bestScalar / 1.0E6) + " ms");
+        System.out.println("  four pixels together:  " + Math.round(bestLanes / 1.0E6) + " ms, " + different + " pixels differ");
+    }
+
+    /** color the iteration counts of a Mandelbrot render with every color set, per pixel and with a palette */
+    public void runPalette() {
+        System.out.println("Palette, " + fPars.getSizeX() + "x" + fPars.getSizeY() + ", maxIterations " + fPars.getMaxIterations());
+
+        FractalRasterIteration fractal = new FractalMandelbrot();
+        fractal.render(new FractalRenderSpec(fPars));
+        int[] iterations = fractal.iterations;
+        int[] formula = new int[iterations.length];
+        int[] table = new int[iterations.length];
+        int oldColorSet = fPars.getSelectedColorSet();
+
+        for (int colorSet = 1; colorSet <= FractalPalette.COLOR_SET_GRADIENT; colorSet++) {
+            fPars.setSelectedColorSet(colorSet);
+            long bestFormula = Long.MAX_VALUE, bestTable = Long.MAX_VALUE;
+
+            for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+                // the gradient has no formula; its palette is compared with itself
+                long start = System.nanoTime();
+                if (colorSet != FractalPalette.COLOR_SET_GRADIENT) {
+                    for (int i = 0; i < iterations.length; i++) {
+                        formula[i] = FractalPalette.calcColor(colorSet, iterations[i], fPars.getMaxIterations());
+                    }
+                }
+                long time = System.nanoTime() - start;
+                if (round >= WARMUP_ROUNDS) {
+                    bestFormula = Math.min(bestFormula, time);
+                }
+
+                // building the palette is part of the render, so it is timed as well
+                start = System.nanoTime();
+                FractalPalette palette = new FractalPalette(new FractalRenderSpec(fPars));
+                for (int i = 0; i < iterations.length; i++) {
+                    table[i] = palette.getRGB(iterations[i]);
+                }
+                time = System.nanoTime() - start;
+                if (round >= WARMUP_ROUNDS) {
+                    bestTable = Math.min(bestTable, time);
+                }
+            }
+
+            if (colorSet == FractalPalette.COLOR_SET_GRADIENT) {
+                System.out.println("  gradient:     palette " + Math.round(bestTable / 1.0E5) / 10.0 + " ms");
+            } else {
+                int different = 0;
+                for (int i = 0; i < iterations.length; i++) {
+                    if (formula[i] != table[i]) {
+                        different++;
+                    }
+                }
+                System.out.println("  color set " + colorSet + ":  per pixel " + Math.round(bestFormula / 1.0E5) / 10.0 + " ms, palette "
+                        + Math.round(bestTable / 1.0E5) / 10.0 + " ms, " + different + " pixels differ");
+            }
+        }
+
+        fPars.setSelectedColorSet(oldColorSet);
+    }
+
+    /** iterate all pixels several times, and return the number of pixels per second of the best round */
+    private double measureIteration() {
+        double xStep = (fPars.getXMax() - fPars.getXMin())/(double)fPars.getSizeX();
+        double yStep = (fPars.getYMax() - fPars.getYMin())/(double)fPars.getSizeY();
+        long best = Long.MAX_VALUE;
+        long sum = 0;
+
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int loopY = 0; loopY < fPars.getSizeY(); loopY++) {
+                for (int loopX = 0; loopX < fPars.getSizeX(); loopX++) {
+                    double x = fPars.getXMin() + loopX * xStep;
+                    double y = fPars.getYMax() - loopY * yStep;
+                    if (fPars.isInteriorCheck() && FractalMandelbrot.isInMainCardioidOrBulb(x, y)) {
+                        sum += fPars.getMaxIterations();
+                    } else {
+                        sum += doIteration(x, y);
+                    }
+                }
+            }
+            long time = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, time);
+            }
+        }
+
+        // use the sum, so that the JIT cannot drop the loop
+        if (sum == 42) {
+            System.out.println();
+        }
+        return (double)fPars.getSizeX() * fPars.getSizeY() / (best / 1.0E9);
+    }
+
+    /** render the image several times, and return the number of pixels per second of the best round */
+    private double measure(boolean useFillRect) {
+        long best = Long.MAX_VALUE;
+
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long start = System.nanoTime();
+            if (useFillRect) {
+                renderFillRect();
+            } else {
+                renderRaster();
+            }
+            long time = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, time);
+            }
+        }
+
+        return (double)fPars.getSizeX() * fPars.getSizeY() / (best / 1.0E9);
+    }
+
+    private void renderFillRect() {
+        BufferedImage image = new BufferedImage(fPars.getSizeX(), fPars.getSizeY(), BufferedImage.TYPE_USHORT_555_RGB);
+        Graphics2D graphics = image.createGraphics();
+
+        double xStep = (fPars.getXMax() - fPars.getXMin())/(double)fPars.getSizeX();
+        double yStep = (fPars.getYMax() - fPars.getYMin())/(double)fPars.getSizeY();
+
+        for (int loopY = 0; loopY < fPars.getSizeY(); loopY++) {
+            for (int loopX = 0; loopX < fPars.getSizeX(); loopX++) {
+                int iterations = doIteration(fPars.getXMin() + loopX * xStep, fPars.getYMax() - loopY * yStep);
+                graphics.setColor(calcColor(iterations));
+                graphics.fillRect(loopX, loopY, 1, 1);
+            }
+        }
+        graphics.dispose();
+    }
+
+    private void renderRaster() {
+        BufferedImage image = new BufferedImage(fPars.getSizeX(), fPars.getSizeY(), BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        double xStep = (fPars.getXMax() - fPars.getXMin())/(double)fPars.getSizeX();
+        double yStep = (fPars.getYMax() - fPars.getYMin())/(double)fPars.getSizeY();
+
+        for (int loopY = 0; loopY < fPars.getSizeY(); loopY++) {
+            for (int loopX = 0; loopX < fPars.getSizeX(); loopX++) {
+                int iterations = doIteration(fPars.getXMin() + loopX * xStep, fPars.getYMax() - loopY * yStep);
+                pixels[loopY * fPars.getSizeX() + loopX] = calcColor(iterations).getRGB();
+            }
+        }
+    }
+
+    /** the same iteration as in FractalMandelbrot, without the cardioid/bulb check */
+    private int doIteration(double x, double y) {
+        double tmpX = 0.0D, tmpY = 0.0D, tmpX_old = 0.0D;
+        int i = 0;
+
+        do {
+            i++;
+            tmpX_old = tmpX;
+            tmpX = tmpX*tmpX - tmpY*tmpY + x;
+            tmpY = 2*tmpX_old*tmpY + y;
+        } while (((tmpX*tmpX + tmpY*tmpY) <= fPars.getMaxLength()) && (i < fPars.getMaxIterations()));
+
+        return i;
+    }
+
+    /** the same color as color set 1 in FractalPalette */
+    private Color calcColor(int iterations) {
+        if (iterations != fPars.getMaxIterations()) {
+            return Color.getHSBColor((float)iterations/(float)fPars.getMaxIterations(), 1.0F, 1.0F);
+        }
+        return Color.BLACK;
+    }
+}
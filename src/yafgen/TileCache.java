@@ -0,0 +1,137 @@
+/*
+ * TileCache.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * TileCache keeps the iteration counts of recently calculated tiles of the raster fractals,
+ * so that a view that is visited again does not have to be calculated again.
+ *
+ * A tile is identified by the fractal, the parameters that change the iteration counts, the pixel
+ * size and the coordinates of its upper left pixel. Pixel size and coordinates are rounded
+ * (to 12 digits and to a millionth of a pixel), so that two views that differ only by rounding
+ * share their tiles. When the cache holds more than its memory budget, the tiles that were
+ * used least recently are dropped.
+ */
+public class TileCache {
+    
+    /** the memory that an entry needs in addition to its iteration counts (key, map entry, array header) */
+    private static final int ENTRY_OVERHEAD = 200;
+    
+    /** the significant digits of the pixel size in a key */
+    private static final MathContext STEP_DIGITS = new MathContext(12);
+    
+    /** the digits of the coordinates in a key, behind the first digit of the pixel size */
+    private static final int COORDINATE_DIGITS = 6;
+    
+    /** the tiles in the order of their last use, the eldest first */
+    private final LinkedHashMap<String, int[]> tiles = new LinkedHashMap<String, int[]>(16, 0.75F, true);
+    
+    private long budget;
+    private long usedBytes = 0;
+    
+    /** Creates a new instance of TileCache that uses at most budget bytes */
+    public TileCache(long budget) {
+        this.budget = budget;
+    }
+    
+    /** change the memory budget; tiles are dropped at once if the cache is too big now */
+    public synchronized void setBudget(long budget) {
+        this.budget = budget;
+        evict();
+    }
+    
+    /**
+     * the key of the tile with the upper left pixel (x, y) and the pixel size (xStep, yStep);
+     * fractal identifies the fractal and all parameters that change the iteration counts
+     */
+    public static String key(String fractal, BigDecimal x, BigDecimal y, BigDecimal xStep, BigDecimal yStep, int width, int height) {
+        return fractal + "|" + xStep.round(STEP_DIGITS) + "|" + yStep.round(STEP_DIGITS)
+                + "|" + quantize(x, xStep) + "|" + quantize(y, yStep) + "|" + width + "x" + height;
+    }
+    
+    /** round the coordinate to a millionth of a pixel of the size step */
+    private static String quantize(BigDecimal coordinate, BigDecimal step) {
+        BigDecimal stripped = step.abs().stripTrailingZeros();
+        // the position of the first digit of step behind the decimal point (negative in front of it)
+        int firstDigit = stripped.scale() - stripped.precision() + 1;
+        return coordinate.setScale(firstDigit + COORDINATE_DIGITS, RoundingMode.HALF_EVEN).toString();
+    }
+    
+    /** the iteration counts of the tile, or null if it is not in the cache; the array must not be changed */
+    public synchronized int[] get(String key) {
+        return tiles.get(key);
+    }
+    
+    /** store the iteration counts of a tile; the cache keeps the array, so it must not be changed afterwards */
+    public synchronized void put(String key, int[] iterations) {
+        int[] old = tiles.put(key, iterations);
+        if (old != null) {
+            usedBytes -= size(key, old);
+        }
+        usedBytes += size(key, iterations);
+        evict();
+    }
+    
+    /** drop all tiles */
+    public synchronized void clear() {
+        tiles.clear();
+        usedBytes = 0;
+    }
+    
+    /** the number of tiles in the cache */
+    public synchronized int getTileCount() {
+        return tiles.size();
+    }
+    
+    /** the memory that the tiles in the cache use, in bytes */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+    
+    /** drop the least recently used tiles until the cache fits into its budget */
+    private void evict() {
+        Iterator<Map.Entry<String, int[]>> iterator = tiles.entrySet().iterator();
+        while (usedBytes > budget && iterator.hasNext()) {
+            Map.Entry<String, int[]> eldest = iterator.next();
+            usedBytes -= size(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+        }
+    }
+    
+    private static long size(String key, int[] iterations) {
+        return 4L * iterations.length + 2L * key.length() + ENTRY_OVERHEAD;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * YaFGenAnimation.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ *
+ * YaFGenAnimation renders an animation without a window, as a sequence of PNG images
+ * (frame0000.png, frame0001.png, ...) that a video encoder can put together, or as animated GIF:
+ *
+ *     java -cp YaFGen.jar yafgen.YaFGenAnimation [OPTIONS] STARTFILE ENDFILE
+ *     java -cp YaFGen.jar yafgen.YaFGenAnimation [OPTIONS] -morph STARTFILE ENDFILE
+ *     java -cp YaFGen.jar yafgen.YaFGenAnimation [OPTIONS] -circle X,Y,RADIUS JULIAFILE
+ *
+ * The first form zooms from the view of the first parameter file to the view of the second one
+ * (see FractalZoomAnimation). The other two morph a Julia set (see FractalJuliaAnimation): -morph
+ * moves its constant from the one of the first file to the one of the second file, -circle moves
+ * it once around the circle.
+ *
+ * The options are
+ *     -size WIDTHxHEIGHT     the size of the frames, instead of the size in the first file
+ *     -frames N              the number of frames
+ *     -fps N                 the frames per second of a GIF file
+ *     -draft FACTOR          render the frames FACTOR times smaller in both directions, e.g. to
+ *                            check the path and the timing; the time of the full size is estimated
+ *     -out DIRECTORY|FILE    where the frames go; a file ending with .gif gets an animated GIF.
+ *                            Without it, they go to a directory named after the first file next to it.
+ *
+ */
+public class YaFGenAnimation {
+    
+    /** the number of frames if -frames is not given; 4 seconds at 25 frames per second */
+    private static final int DEFAULT_FRAMES = 100;
+    
+    /** Creates a new instance of YaFGenAnimation */
+    private YaFGenAnimation() {
+    }
+    
+    public static void main(String[] args) {
+        // no display needed; this must be set before the first AWT class is loaded
+        System.setProperty("java.awt.headless", "true");
+        
+        int sizeX = 0, sizeY = 0;
+        int frames = DEFAULT_FRAMES;
+        int framesPerSecond = 25;
+        int draft = 1;
+        boolean morph = false;
+        double[] circle = null;
+        File out = null;
+        File start = null, end = null;
+        
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-size") && i + 1 < args.length) {
+                String[] size = args[++i].split("x");
+                try {
+                    sizeX = Integer.parseInt(size[0]);
+                    sizeY = Integer.parseInt(size[1]);
+                } catch (RuntimeException rE) {
+                    usage("invalid size " + args[i]);
+                }
+            } else if (args[i].equals("-frames") && i + 1 < args.length) {
+                frames = positive(args[++i], "invalid number of frames ");
+            } else if (args[i].equals("-fps") && i + 1 < args.length) {
+                framesPerSecond = positive(args[++i], "invalid frames per second ");
+            } else if (args[i].equals("-draft") && i + 1 < args.length) {
+                draft = positive(args[++i], "invalid draft factor ");
+            } else if (args[i].equals("-morph")) {
+                morph = true;
+            } else if (args[i].equals("-circle") && i + 1 < args.length) {
+                String[] values = args[++i].split(",");
+                try {
+                    circle = new double[] { Double.parseDouble(values[0]), Double.parseDouble(values[1]), Double.parseDouble(values[2]) };
+                } catch (RuntimeException rE) {
+                    usage("invalid circle " + args[i]);
+                }
+            } else if (args[i].equals("-out") && i + 1 < args.length) {
+                out = new File(args[++i]);
+            } else if (args[i].startsWith("-")) {
+                usage("unknown option " + args[i]);
+            } else if (start == null) {
+                start = new File(args[i]);
+            } else if (end == null) {
+                end = new File(args[i]);
+            } else {
+                usage("too many parameter files");
+            }
+        }
+        
+        if (circle != null && morph) {
+            usage("-circle and -morph cannot be combined");
+        }
+        if (circle != null ? (start == null || end != null) : end == null) {
+            usage(circle != null ? "-circle needs one parameter file" : "a start and an end parameter file are needed");
+        }
+        
+        FractalParameters fPars, endPars = null;
+        try {
+            fPars = YaFGenBatch.readParameters(start, sizeX, sizeY);
+            if (end != null) {
+                endPars = YaFGenBatch.readParameters(end, sizeX, sizeY);
+            }
+        } catch (IOException iE) {
+            System.out.println("cannot read the parameters, " + iE);
+            System.exit(1);
+            return;
+        }
+        if (FractalRenderer.forType(fPars.getCurrentFractalType()) == null) {
+            System.out.println(start + ": unknown fractal type " + fPars.getCurrentFractalType());
+            System.exit(1);
+        }
+        if ((morph || circle != null) && fPars.getCurrentFractalType() != 2) {
+            System.out.println(start + ": only a Julia set can be morphed");
+            System.exit(1);
+        }
+        
+        if (draft > 1) {
+            fPars.setSizeX(Math.max(1, fPars.getSizeX() / draft));
+            fPars.setSizeY(Math.max(1, fPars.getSizeY() / draft));
+        }
+        // every frame is different, so the caches would only hold memory
+        fPars.setTileCacheSize(0);
+        fPars.setDiskCacheSize(0);
+        
+        if (out == null) {
+            String name = start.getName();
+            if (name.toLowerCase().endsWith(".yafgen")) {
+                name = name.substring(0, name.length() - ".yafgen".length());
+            }
+            out = new File(start.getAbsoluteFile().getParentFile(), name);
+        }
+        if (!out.getName().toLowerCase().endsWith(".gif") && !out.isDirectory() && !out.mkdirs()) {
+            System.out.println(out + ": cannot create the directory");
+            System.exit(1);
+        }
+        
+        FractalAnimation animation;
+        if (circle != null) {
+            FractalJuliaAnimation julia = new FractalJuliaAnimation(fPars, frames);
+            julia.setCircle(circle[0], circle[1], circle[2]);
+            animation = julia;
+        } else if (morph) {
+            FractalJuliaAnimation julia = new FractalJuliaAnimation(fPars, frames);
+            julia.setLine(endPars.getXFix(), endPars.getYFix());
+            animation = julia;
+        } else {
+            animation = new FractalZoomAnimation(fPars, endPars, frames);
+        }
+        animation.setFramesPerSecond(framesPerSecond);
+        
+        long startTime = System.currentTimeMillis();
+        try {
+            animation.render(out);
+        } catch (IOException iE) {
+            System.out.println(out + ": cannot write the animation, " + iE);
+            System.exit(1);
+        } catch (InterruptedException iE) {
+            System.out.println(out + ": interrupted");
+            System.exit(1);
+        }
+        
+        long renderTime = System.currentTimeMillis() - startTime;
+        
+        System.out.println(frames + " frames of " + fPars.getSizeX() + "x" + fPars.getSizeY() + " rendered in " + renderTime + " ms, written to " + out);
+        if (draft > 1) {
+            // the time grows with the number of pixels
+            System.out.println("draft " + draft + ": the full size takes about " + (renderTime * draft * draft / 1000) + " s");
+        }
+        System.exit(0);
+    }
+    
+    /** a positive number given as argument; the program ends with the message if it is not one */
+    private static int positive(String arg, String error) {
+        int value = 0;
+        try {
+            value = Integer.parseInt(arg);
+        } catch (NumberFormatException nFE) {
+            usage(error + arg);
+        }
+        if (value < 1) {
+            usage(error + arg);
+        }
+        return value;
+    }
+    
+    private static void usage(String error) {
+        System.out.println("YaFGenAnimation: " + error);
+        System.out.println("usage: java -cp YaFGen.jar yafgen.YaFGenAnimation [OPTIONS] [-morph] STARTFILE ENDFILE");
+        System.out.println("       java -cp YaFGen.jar yafgen.YaFGenAnimation [OPTIONS] -circle X,Y,RADIUS JULIAFILE");
+        System.out.println("options: -size WIDTHxHEIGHT, -frames N, -fps N, -draft FACTOR, -out DIRECTORY|FILE.gif");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * YaFGenBatch.java
+ *
+ * Version 1.3, created on 18. October 2026
+ *
+ *
+ *   YaFGen - Yet another Fractal Generator - Generate images based on mathematical formulas 
+ *   Copyright (C) 2007  Roland Grpmair
+ *
+ *   This file is part of YaFGen.
+ *
+ *   YaFGen is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   YaFGen is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with YaFGen; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ *   To contact the author, please send an email to the following address: rgropmair "at" gmail.com
+ *
+ */
+package yafgen;
+
+import java.awt.image.BufferedImage;
+import java.beans.XMLDecoder;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ *
+ * YaFGenBatch renders parameter files (*.yafgen, as saved by "Save Parameters") without a window,
+ * e.g. on a server or in a cron job:
+ *
+ *     java -cp YaFGen.jar yafgen.YaFGenBatch [-size WIDTHxHEIGHT] [-poster] [-out FILE|DIRECTORY] PARAMETERFILE ...
+ *
+ * Every parameter file is rendered with the fractal type, view and colors it was saved with,
+ * and written as PNG image next to it (or to the file/directory given by -out). The raster
+ * fractals use all processors. The time of every image is printed; the exit code is 1 if
+ * one of the files could not be rendered.
+ *
+ * With -poster, the raster fractals are rendered in strips and streamed into the PNG file
+ * (see FractalPoster), so that images larger than the memory can be rendered, e.g.
+ * -size 40000x30000 for a print poster. Images of more than 2^31 pixels always use it.
+ *
+ */
+public class YaFGenBatch {
+    
+    /** Creates a new instance of YaFGenBatch */
+    private YaFGenBatch() {
+    }
+    
+    public static void main(String[] args) {
+        // no display needed; this must be set before the first AWT class is loaded
+        System.setProperty("java.awt.headless", "true");
+        
+        int sizeX = 0, sizeY = 0;
+        File out = null;
+        boolean poster = false;
+        int files = 0, failed = 0;
+        
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-size") && i + 1 < args.length) {
+                String[] size = args[++i].split("x");
+                try {
+                    sizeX = Integer.parseInt(size[0]);
+                    sizeY = Integer.parseInt(size[1]);
+                } catch (RuntimeException rE) {
+                    usage("invalid size " + args[i]);
+                }
+            } else if (args[i].equals("-out") && i + 1 < args.length) {
+                out = new File(args[++i]);
+            } else if (args[i].equals("-poster")) {
+                poster = true;
+            } else if (args[i].startsWith("-")) {
+                usage("unknown option " + args[i]);
+            } else {
+                files++;
+                File in = new File(args[i]);
+                if (!render(in, outputFile(in, out), sizeX, sizeY, poster)) {
+                    failed++;
+                }
+            }
+        }
+        
+        if (files == 0) {
+            usage("no parameter file");
+        }
+        System.exit(failed == 0 ? 0 : 1);
+    }
+    
+    /** the PNG file of the parameter file: in the directory out, or out itself, or next to the parameter file */
+    private static File outputFile(File in, File out) {
+        String name = in.getName();
+        if (name.toLowerCase().endsWith(".yafgen")) {
+            name = name.substring(0, name.length() - ".yafgen".length());
+        }
+        name = name + ".png";
+        
+        if (out == null) {
+            return new File(in.getAbsoluteFile().getParentFile(), name);
+        }
+        if (out.isDirectory()) {
+            return new File(out, name);
+        }
+        return out;
+    }
+    
+    /** render one parameter file into a PNG file; false if that failed */
+    private static boolean render(File in, File png, int sizeX, int sizeY, boolean poster) {
+        FractalParameters fPars;
+        try {
+            fPars = readParameters(in, sizeX, sizeY);
+        } catch (IOException iE) {
+            System.out.println(in + ": cannot read the parameters, " + iE);
+            return false;
+        }
+        
+        FractalRenderer fractal = FractalRenderer.forType(fPars.getCurrentFractalType());
+        if (fractal == null) {
+            System.out.println(in + ": unknown fractal type " + fPars.getCurrentFractalType());
+            return false;
+        }
+        
+        // a BufferedImage cannot have more than 2^31 pixels
+        if (poster || (long)fPars.getSizeX() * fPars.getSizeY() > Integer.MAX_VALUE) {
+            return renderPoster(in, png, fPars, fractal);
+        }
+        
+        long startTime = System.currentTimeMillis();
+        BufferedImage image = fractal.render(new FractalRenderSpec(fPars));
+        long renderTime = System.currentTimeMillis() - startTime;
+        if (image == null) {
+            System.out.println(in + ": the fractal could not be rendered (overflow?)");
+            return false;
+        }
+        
+        try {
+            ImageIO.write(image, "png", png);
+        } catch (IOException iE) {
+            System.out.println(png + ": cannot write the image, " + iE);
+            return false;
+        }
+        
+        System.out.println(in + ": " + fPars.getSizeX() + "x" + fPars.getSizeY() + " rendered in " + renderTime + " ms, written to " + png);
+        return true;
+    }
+    
+    /** read a parameter file, and prepare it for rendering without a window in the given size (0 keeps the saved size) */
+    static FractalParameters readParameters(File in, int sizeX, int sizeY) throws IOException {
+        FractalParameters fPars;
+        try {
+            XMLDecoder decoder = new XMLDecoder(new BufferedInputStream(new FileInputStream(in)));
+            fPars = (FractalParameters) decoder.readObject();
+            decoder.close();
+        } catch (RuntimeException rE) {
+            // XMLDecoder reports a broken file with unchecked exceptions
+            throw new IOException(rE.toString());
+        }
+        
+        if (sizeX > 0 && sizeY > 0) {
+            fPars.setSizeX(sizeX);
+            fPars.setSizeY(sizeY);
+        }
+        // an endless iteration function could not be stopped here, so it gets its count of points
+        fPars.setInfiniteLoop(false);
+        fPars.setSleep(0);
+        return fPars;
+    }
+    
+    /** render a raster fractal in strips into the PNG file; false if that failed */
+    private static boolean renderPoster(File in, File png, FractalParameters fPars, FractalRenderer fractal) {
+        if (!(fractal instanceof FractalRasterIteration)) {
+            // the iteration functions may draw every point anywhere, so they cannot be split into strips
+            System.out.println(in + ": only Mandelbrot, Julia and Manowar can be rendered as poster");
+            return false;
+        }
+        
+        // a poster is not viewed again, so its tiles would only push useful ones out of the caches
+        fPars.setTileCacheSize(0);
+        fPars.setDiskCacheSize(0);
+        
+        FractalPoster poster = new FractalPoster((FractalRasterIteration) fractal, new FractalRenderSpec(fPars));
+        long startTime = System.currentTimeMillis();
+        try {
+            poster.write(png);
+        } catch (IOException iE) {
+            System.out.println(png + ": cannot write the image, " + iE);
+            return false;
+        } catch (InterruptedException iE) {
+            System.out.println(png + ": interrupted");
+            return false;
+        }
+        long renderTime = System.currentTimeMillis() - startTime;
+        
+        System.out.println(in + ": " + fPars.getSizeX() + "x" + fPars.getSizeY() + " rendered in " + poster.getStripCount() + " strips of " + poster.getStripRows() + " rows in " + renderTime + " ms, written to " + png);
+        return true;
+    }
+    
+    private static void usage(String error) {
+        System.out.println("YaFGenBatch: " + error);
+        System.out.println("usage: java -cp YaFGen.jar yafgen.YaFGenBatch [-size WIDTHxHEIGHT] [-poster] [-out FILE|DIRECTORY] PARAMETERFILE ...");
+        System.exit(2);
+    }
+}
@@ -41,6 +41,7 @@ package yafgen;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.math.BigDecimal;
 import javax.swing.*;
 import java.awt.geom.*;
 import java.awt.*;
@@ -172,10 +173,13 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
 //        apple.laf.useScreenMenuBar = true;
         jMenuItemMandelbrot.setSelected(true);
         jMenuColorSet1.setSelected(true);
+        jMenuRenderProgressive.setSelected(true);
+        jMenuAntialiasingOff.setSelected(true);
+        jMenuDistanceOff.setSelected(true);
 
         fPars.setDefaultParameters(null);
-        fractalImage = new FractalMandelbrot(this, fPars);
-        fPars.setDefaultParameters(fractalImage);
+        fractalImage = new FractalImage(this, fPars, new FractalMandelbrot());
+        fPars.setDefaultParameters(fractalImage.getRenderer());
         fPars.setCurrentFractalType(1);
 
         // Java 1.5: fractalFrame.add(fractalImage);
@@ -252,50 +256,44 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
         // user did dragging, so meant zooming in/out
         pointMouseDraggedEnd = e.getPoint();
 
-        if (pointMouseDraggedStart.getX() > pointMouseDraggedEnd.getX()) {
-            int temp = pointMouseDraggedStart.x;
-            pointMouseDraggedStart.x = pointMouseDraggedEnd.x;
-            pointMouseDraggedEnd.x = temp;
-        }
+        if (e.getButton() == MouseEvent.BUTTON2 || (e.getButton() == MouseEvent.BUTTON1 && e.isShiftDown())) {
+            // middle button or shift: move the view, so that the point under the start of the drag follows the mouse
+            System.out.println(this.getClass() + "pan");
+            fPars.pan(pointMouseDraggedStart.x - pointMouseDraggedEnd.x, pointMouseDraggedStart.y - pointMouseDraggedEnd.y);
+        } else {
+            if (pointMouseDraggedStart.getX() > pointMouseDraggedEnd.getX()) {
+                int temp = pointMouseDraggedStart.x;
+                pointMouseDraggedStart.x = pointMouseDraggedEnd.x;
+                pointMouseDraggedEnd.x = temp;
+            }
 
-        if (pointMouseDraggedStart.getY() > pointMouseDraggedEnd.getY()) {
-            int temp = pointMouseDraggedStart.y;
-            pointMouseDraggedStart.y = pointMouseDraggedEnd.y;
-            pointMouseDraggedEnd.y = temp;
-        }
+            if (pointMouseDraggedStart.getY() > pointMouseDraggedEnd.getY()) {
+                int temp = pointMouseDraggedStart.y;
+                pointMouseDraggedStart.y = pointMouseDraggedEnd.y;
+                pointMouseDraggedEnd.y = temp;
+            }
+
+            // zoom completed: calculate new parameters after zoom
+            Point start = pointMouseDraggedStart;
+            Point end = pointMouseDraggedEnd;
 
-        // zoom completed: calculate new parameters after zoom
-        Point start = pointMouseDraggedStart;
-        Point end = pointMouseDraggedEnd;
-
-        if (e.getButton() == MouseEvent.BUTTON1) {
-            System.out.println(this.getClass() + "zoom in");
-
-            double xMinNew = fPars.getXMin() + pointMouseDraggedStart.getX() * ((fPars.getXMax() - fPars.getXMin()) / fPars.getSizeX());
-            fPars.setXMax(fPars.getXMax() - (fPars.getSizeX() - pointMouseDraggedEnd.getX()) * ((fPars.getXMax() - fPars.getXMin()) / fPars.getSizeX()));
-            double yMinNew = fPars.getYMax() - pointMouseDraggedEnd.getY() * ((fPars.getYMax() - fPars.getYMin()) / fPars.getSizeY());
-            fPars.setYMax(fPars.getYMax() - pointMouseDraggedStart.getY() * ((fPars.getYMax() - fPars.getYMin()) / fPars.getSizeY()));
-            fPars.setXMin(xMinNew);
-            fPars.setYMin(yMinNew);
-        } else if (e.getButton() == MouseEvent.BUTTON3) {
-            System.out.println(this.getClass() + "zoom out");
-
-            double xMinNew = fPars.getXMin() - pointMouseDraggedStart.getX() * ((fPars.getXMax() - fPars.getXMin()) / (pointMouseDraggedEnd.getX() - pointMouseDraggedStart.getX()));
-            fPars.setXMax(fPars.getXMax() + (fPars.getSizeX() - pointMouseDraggedEnd.getX()) * ((fPars.getXMax() - fPars.getXMin()) / (pointMouseDraggedEnd.getX() - pointMouseDraggedStart.getX())));
-            double yMinNew = fPars.getYMin() - (fPars.getSizeY() - pointMouseDraggedEnd.getY()) * ((fPars.getYMax() - fPars.getYMin()) / (pointMouseDraggedEnd.getY() - pointMouseDraggedStart.getY()));
-            fPars.setYMax(fPars.getYMax() + pointMouseDraggedStart.getY() * ((fPars.getYMax() - fPars.getYMin()) / (pointMouseDraggedEnd.getY() - pointMouseDraggedStart.getY())));
-            fPars.setXMin(xMinNew);
-            fPars.setYMin(yMinNew);
+            if (e.getButton() == MouseEvent.BUTTON1) {
+                System.out.println(this.getClass() + "zoom in");
+                fPars.zoom(start.x, start.y, end.x, end.y, true);
+            } else if (e.getButton() == MouseEvent.BUTTON3) {
+                System.out.println(this.getClass() + "zoom out");
+                fPars.zoom(start.x, start.y, end.x, end.y, false);
+            }
         }
 
-        // update input fields
-        fractalXMin.setText(Double.toString(fPars.getXMin()));
+        // update input fields; they show all digits, so that deep zooms survive the next repaint
+        fractalXMin.setText(fPars.preciseXMin().toString());
         fractalXMin.moveCaretPosition(0);
-        fractalXMax.setText(Double.toString(fPars.getXMax()));
+        fractalXMax.setText(fPars.preciseXMax().toString());
         fractalXMax.moveCaretPosition(0);
-        fractalYMin.setText(Double.toString(fPars.getYMin()));
+        fractalYMin.setText(fPars.preciseYMin().toString());
         fractalYMin.moveCaretPosition(0);
-        fractalYMax.setText(Double.toString(fPars.getYMax()));
+        fractalYMax.setText(fPars.preciseYMax().toString());
         fractalYMax.moveCaretPosition(0);
 
         pointMouseDraggedStart = null;
@@ -360,6 +358,9 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
         jScrollPane3 = new javax.swing.JScrollPane();
         jTextPane1 = new javax.swing.JTextPane();
         buttonGroupColorSet = new javax.swing.ButtonGroup();
+        buttonGroupRenderMode = new javax.swing.ButtonGroup();
+        buttonGroupAntialiasing = new javax.swing.ButtonGroup();
+        buttonGroupDistance = new javax.swing.ButtonGroup();
         jPicasaUpload = new javax.swing.JDialog();
         jPicasaUpload.setSize(new Dimension(600,450));
         jLabel33 = new javax.swing.JLabel();
@@ -405,6 +406,8 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
         jLabel26 = new javax.swing.JLabel();
         fractalTypeManowar = new javax.swing.JRadioButton();
         jLabel32 = new javax.swing.JLabel();
+        fractalTypeBuddhabrot = new javax.swing.JRadioButton();
+        fractalTypeAntiBuddhabrot = new javax.swing.JRadioButton();
         jPanelIterationFunctions = new javax.swing.JPanel();
         iterationFunctions = new javax.swing.JTabbedPane();
         jPanelIFS = new javax.swing.JPanel();
@@ -471,6 +474,8 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
         jMenuItemMandelbrot = new javax.swing.JRadioButtonMenuItem();
         jMenuItemJulia = new javax.swing.JRadioButtonMenuItem();
         jMenuItemManowar = new javax.swing.JRadioButtonMenuItem();
+        jMenuItemBuddhabrot = new javax.swing.JRadioButtonMenuItem();
+        jMenuItemAntiBuddhabrot = new javax.swing.JRadioButtonMenuItem();
         jSeparator2 = new javax.swing.JSeparator();
         jMenuItemIFS = new javax.swing.JRadioButtonMenuItem();
         jMenuItemNLF = new javax.swing.JRadioButtonMenuItem();
@@ -480,6 +485,22 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
         jMenuColorSet2 = new javax.swing.JRadioButtonMenuItem();
         jMenuColorSet3 = new javax.swing.JRadioButtonMenuItem();
         jMenuColorSet4 = new javax.swing.JRadioButtonMenuItem();
+        jMenuColorGradient = new javax.swing.JRadioButtonMenuItem();
+        jMenuItemDefineGradient = new javax.swing.JMenuItem();
+        jSeparator3 = new javax.swing.JSeparator();
+        jMenuRenderProgressive = new javax.swing.JRadioButtonMenuItem();
+        jMenuRenderSubdivision = new javax.swing.JRadioButtonMenuItem();
+        jMenuRenderBoundary = new javax.swing.JRadioButtonMenuItem();
+        jMenuSolidGuessing = new javax.swing.JCheckBoxMenuItem();
+        jSeparator4 = new javax.swing.JSeparator();
+        jMenuAntialiasingOff = new javax.swing.JRadioButtonMenuItem();
+        jMenuAntialiasing2 = new javax.swing.JRadioButtonMenuItem();
+        jMenuAntialiasing3 = new javax.swing.JRadioButtonMenuItem();
+        jMenuAntialiasing4 = new javax.swing.JRadioButtonMenuItem();
+        jSeparator7 = new javax.swing.JSeparator();
+        jMenuDistanceOff = new javax.swing.JRadioButtonMenuItem();
+        jMenuDistanceBoundary = new javax.swing.JRadioButtonMenuItem();
+        jMenuDistanceColors = new javax.swing.JRadioButtonMenuItem();
         jMenuHelp = new javax.swing.JMenu();
         jMenuItemAbout = new javax.swing.JMenuItem();
 
@@ -770,6 +791,14 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
         jLabel32.setFont(new java.awt.Font("Lucida Grande", 0, 10));
         jLabel32.setText("x := x?/y-x?*y+xf;  y := x*y-y/xx+yf");
 
+        buttonGroupFractalType.add(fractalTypeBuddhabrot);
+        fractalTypeBuddhabrot.setText("Buddhabrot");
+        fractalTypeBuddhabrot.setMargin(new java.awt.Insets(0, 0, 0, 0));
+
+        buttonGroupFractalType.add(fractalTypeAntiBuddhabrot);
+        fractalTypeAntiBuddhabrot.setText("Anti-Buddhabrot");
+        fractalTypeAntiBuddhabrot.setMargin(new java.awt.Insets(0, 0, 0, 0));
+
         org.jdesktop.layout.GroupLayout jPanelMandelJuliaLayout = new org.jdesktop.layout.GroupLayout(jPanelMandelJulia);
         jPanelMandelJulia.setLayout(jPanelMandelJuliaLayout);
         jPanelMandelJuliaLayout.setHorizontalGroup(
@@ -781,6 +810,10 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
                         .add(jPanelMandelJuliaLayout.createSequentialGroup()
                             .add(fractalTypeManowar)
                             .add(263, 263, 263))
+                        .add(jPanelMandelJuliaLayout.createSequentialGroup()
+                            .add(fractalTypeBuddhabrot)
+                            .addPreferredGap(org.jdesktop.layout.LayoutStyle.RELATED)
+                            .add(fractalTypeAntiBuddhabrot))
                         .add(jPanelMandelJuliaLayout.createParallelGroup(org.jdesktop.layout.GroupLayout.LEADING)
                             .add(jPanelMandelJuliaLayout.createSequentialGroup()
                                 .add(jPanelMandelJuliaLayout.createParallelGroup(org.jdesktop.layout.GroupLayout.LEADING)
@@ -835,6 +868,10 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
                 .add(jPanelMandelJuliaLayout.createParallelGroup(org.jdesktop.layout.GroupLayout.BASELINE)
                     .add(fractalTypeManowar)
                     .add(jLabel32, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE, 21, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(org.jdesktop.layout.LayoutStyle.RELATED)
+                .add(jPanelMandelJuliaLayout.createParallelGroup(org.jdesktop.layout.GroupLayout.BASELINE)
+                    .add(fractalTypeBuddhabrot)
+                    .add(fractalTypeAntiBuddhabrot))
                 .addPreferredGap(org.jdesktop.layout.LayoutStyle.RELATED, 19, Short.MAX_VALUE)
                 .add(jLabel26)
                 .addPreferredGap(org.jdesktop.layout.LayoutStyle.RELATED)
@@ -1326,6 +1363,24 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
             }
         });
         jMenuFractalType.add(jMenuItemManowar);
+
+        buttonGroupViewMenu.add(jMenuItemBuddhabrot);
+        jMenuItemBuddhabrot.setText("Buddhabrot");
+        jMenuItemBuddhabrot.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuItemBuddhabrotActionPerformed(evt);
+            }
+        });
+        jMenuFractalType.add(jMenuItemBuddhabrot);
+
+        buttonGroupViewMenu.add(jMenuItemAntiBuddhabrot);
+        jMenuItemAntiBuddhabrot.setText("Anti-Buddhabrot");
+        jMenuItemAntiBuddhabrot.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuItemAntiBuddhabrotActionPerformed(evt);
+            }
+        });
+        jMenuFractalType.add(jMenuItemAntiBuddhabrot);
         jMenuFractalType.add(jSeparator2);
 
         jMenuItemIFS.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_2, java.awt.event.InputEvent.CTRL_MASK));
@@ -1398,6 +1453,124 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
         });
         jMenuOptions.add(jMenuColorSet4);
 
+        buttonGroupColorSet.add(jMenuColorGradient);
+        jMenuColorGradient.setText("Use Color Gradient");
+        jMenuColorGradient.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuColorGradientActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuColorGradient);
+
+        jMenuItemDefineGradient.setText("Define Color Gradient ...");
+        jMenuItemDefineGradient.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuItemDefineGradientActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuItemDefineGradient);
+        jMenuOptions.add(jSeparator3);
+
+        buttonGroupRenderMode.add(jMenuRenderProgressive);
+        jMenuRenderProgressive.setText("Progressive Refinement");
+        jMenuRenderProgressive.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuRenderProgressiveActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuRenderProgressive);
+
+        buttonGroupRenderMode.add(jMenuRenderSubdivision);
+        jMenuRenderSubdivision.setText("Rectangle Subdivision");
+        jMenuRenderSubdivision.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuRenderSubdivisionActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuRenderSubdivision);
+
+        buttonGroupRenderMode.add(jMenuRenderBoundary);
+        jMenuRenderBoundary.setText("Boundary Tracing");
+        jMenuRenderBoundary.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuRenderBoundaryActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuRenderBoundary);
+
+        jMenuSolidGuessing.setText("Solid Guessing (Draft)");
+        jMenuSolidGuessing.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuSolidGuessingActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuSolidGuessing);
+        jMenuOptions.add(jSeparator4);
+
+        buttonGroupAntialiasing.add(jMenuAntialiasingOff);
+        jMenuAntialiasingOff.setText("No Antialiasing");
+        jMenuAntialiasingOff.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuAntialiasingOffActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuAntialiasingOff);
+
+        buttonGroupAntialiasing.add(jMenuAntialiasing2);
+        jMenuAntialiasing2.setText("Antialiasing 2x2");
+        jMenuAntialiasing2.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuAntialiasing2ActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuAntialiasing2);
+
+        buttonGroupAntialiasing.add(jMenuAntialiasing3);
+        jMenuAntialiasing3.setText("Antialiasing 3x3");
+        jMenuAntialiasing3.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuAntialiasing3ActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuAntialiasing3);
+
+        buttonGroupAntialiasing.add(jMenuAntialiasing4);
+        jMenuAntialiasing4.setText("Antialiasing 4x4");
+        jMenuAntialiasing4.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuAntialiasing4ActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuAntialiasing4);
+        jMenuOptions.add(jSeparator7);
+
+        buttonGroupDistance.add(jMenuDistanceOff);
+        jMenuDistanceOff.setText("No Distance Estimation");
+        jMenuDistanceOff.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuDistanceOffActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuDistanceOff);
+
+        buttonGroupDistance.add(jMenuDistanceBoundary);
+        jMenuDistanceBoundary.setText("Distance Estimation: Boundary");
+        jMenuDistanceBoundary.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuDistanceBoundaryActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuDistanceBoundary);
+
+        buttonGroupDistance.add(jMenuDistanceColors);
+        jMenuDistanceColors.setText("Distance Estimation: Colors");
+        jMenuDistanceColors.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuDistanceColorsActionPerformed(evt);
+            }
+        });
+        jMenuOptions.add(jMenuDistanceColors);
+
         jMenuBar.add(jMenuOptions);
 
         jMenuHelp.setText("Help");
@@ -1532,6 +1705,16 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
         fractalTypeManowar.setSelected(true);
     }//GEN-LAST:event_jMenuItemManowarActionPerformed
 
+    private void jMenuItemBuddhabrotActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuItemBuddhabrotActionPerformed
+        fractalType.setSelectedComponent(jPanelMandelJulia);
+        fractalTypeBuddhabrot.setSelected(true);
+    }//GEN-LAST:event_jMenuItemBuddhabrotActionPerformed
+
+    private void jMenuItemAntiBuddhabrotActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuItemAntiBuddhabrotActionPerformed
+        fractalType.setSelectedComponent(jPanelMandelJulia);
+        fractalTypeAntiBuddhabrot.setSelected(true);
+    }//GEN-LAST:event_jMenuItemAntiBuddhabrotActionPerformed
+
     private void jMenuItemJuliaActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuItemJuliaActionPerformed
         fractalType.setSelectedComponent(jPanelMandelJulia);
         fractalTypeJulia.setSelected(true);
@@ -1612,6 +1795,20 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
                 fractalTypeManowar.setSelected(true);
                 refreshInputFields();
 
+                break;
+            case 7:
+                jMenuItemBuddhabrot.setSelected(true);
+                fractalType.setSelectedIndex(0);
+                fractalTypeBuddhabrot.setSelected(true);
+                refreshInputFields();
+
+                break;
+            case 8:
+                jMenuItemAntiBuddhabrot.setSelected(true);
+                fractalType.setSelectedIndex(0);
+                fractalTypeAntiBuddhabrot.setSelected(true);
+                refreshInputFields();
+
                 break;
         }
 
@@ -1628,6 +1825,49 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
             case 4:
                 jMenuColorSet4.setSelected(true);
                 break;
+            case FractalPalette.COLOR_SET_GRADIENT:
+                jMenuColorGradient.setSelected(true);
+                break;
+        }
+
+        switch (fPars.getRenderMode()) {
+            case 1:
+                jMenuRenderProgressive.setSelected(true);
+                break;
+            case 2:
+                jMenuRenderSubdivision.setSelected(true);
+                break;
+            case 3:
+                jMenuRenderBoundary.setSelected(true);
+                break;
+        }
+        jMenuSolidGuessing.setSelected(fPars.isSolidGuessing());
+
+        switch (fPars.getAntialiasing()) {
+            case 2:
+                jMenuAntialiasing2.setSelected(true);
+                break;
+            case 3:
+                jMenuAntialiasing3.setSelected(true);
+                break;
+            case 4:
+                jMenuAntialiasing4.setSelected(true);
+                break;
+            default:
+                jMenuAntialiasingOff.setSelected(true);
+                break;
+        }
+
+        switch (fPars.getDistanceEstimation()) {
+            case 1:
+                jMenuDistanceBoundary.setSelected(true);
+                break;
+            case 2:
+                jMenuDistanceColors.setSelected(true);
+                break;
+            default:
+                jMenuDistanceOff.setSelected(true);
+                break;
         }
 
         // todo resize manually?
@@ -1641,22 +1881,100 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
         setSizeButton86ActionPerformed(evt);
     }//GEN-LAST:event_jMenuItemSetSize86ActionPerformed
 
+    private void jMenuItemDefineGradientActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuItemDefineGradientActionPerformed
+        String gradient = (String)JOptionPane.showInputDialog(this, "Colors of the gradient as hexadecimal RRGGBB values, separated by commas:",
+                "Define Color Gradient", JOptionPane.PLAIN_MESSAGE, null, null, fPars.getGradient());
+        if (gradient == null) {
+            return;
+        }
+        try {
+            FractalPalette.parseGradient(gradient);
+        } catch (NumberFormatException nFE) {
+            JOptionPane.showMessageDialog(this, "The gradient cannot be used: " + nFE.getMessage(), "Define Color Gradient - Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        fPars.setGradient(gradient.trim());
+        fPars.setSelectedColorSet(FractalPalette.COLOR_SET_GRADIENT);
+        jMenuColorGradient.setSelected(true);
+        recolorFractal();
+    }//GEN-LAST:event_jMenuItemDefineGradientActionPerformed
+
+    /** show the new color set at once, if the fractal can be recolored from its iteration counts */
+    private void recolorFractal() {
+        if (fractalImage.recolor()) {
+            fractalImage.repaint();
+        }
+    }
+
+    private void jMenuColorGradientActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuColorGradientActionPerformed
+        fPars.setSelectedColorSet(FractalPalette.COLOR_SET_GRADIENT);
+        recolorFractal();
+    }//GEN-LAST:event_jMenuColorGradientActionPerformed
+
     private void jMenuColorSet4ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuColorSet4ActionPerformed
         fPars.setSelectedColorSet(4);
+        recolorFractal();
     }//GEN-LAST:event_jMenuColorSet4ActionPerformed
 
     private void jMenuColorSet3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuColorSet3ActionPerformed
         fPars.setSelectedColorSet(3);
+        recolorFractal();
     }//GEN-LAST:event_jMenuColorSet3ActionPerformed
 
     private void jMenuColorSet2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuColorSet2ActionPerformed
         fPars.setSelectedColorSet(2);
+        recolorFractal();
     }//GEN-LAST:event_jMenuColorSet2ActionPerformed
 
     private void jMenuColorSet1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuColorSet1ActionPerformed
         fPars.setSelectedColorSet(1);
+        recolorFractal();
     }//GEN-LAST:event_jMenuColorSet1ActionPerformed
 
+    private void jMenuRenderProgressiveActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuRenderProgressiveActionPerformed
+        fPars.setRenderMode(1);
+    }//GEN-LAST:event_jMenuRenderProgressiveActionPerformed
+
+    private void jMenuRenderSubdivisionActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuRenderSubdivisionActionPerformed
+        fPars.setRenderMode(2);
+    }//GEN-LAST:event_jMenuRenderSubdivisionActionPerformed
+
+    private void jMenuRenderBoundaryActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuRenderBoundaryActionPerformed
+        fPars.setRenderMode(3);
+    }//GEN-LAST:event_jMenuRenderBoundaryActionPerformed
+
+    private void jMenuSolidGuessingActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuSolidGuessingActionPerformed
+        fPars.setSolidGuessing(jMenuSolidGuessing.isSelected());
+    }//GEN-LAST:event_jMenuSolidGuessingActionPerformed
+
+    private void jMenuAntialiasingOffActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuAntialiasingOffActionPerformed
+        fPars.setAntialiasing(1);
+    }//GEN-LAST:event_jMenuAntialiasingOffActionPerformed
+
+    private void jMenuAntialiasing2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuAntialiasing2ActionPerformed
+        fPars.setAntialiasing(2);
+    }//GEN-LAST:event_jMenuAntialiasing2ActionPerformed
+
+    private void jMenuAntialiasing3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuAntialiasing3ActionPerformed
+        fPars.setAntialiasing(3);
+    }//GEN-LAST:event_jMenuAntialiasing3ActionPerformed
+
+    private void jMenuAntialiasing4ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuAntialiasing4ActionPerformed
+        fPars.setAntialiasing(4);
+    }//GEN-LAST:event_jMenuAntialiasing4ActionPerformed
+
+    private void jMenuDistanceOffActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuDistanceOffActionPerformed
+        fPars.setDistanceEstimation(0);
+    }//GEN-LAST:event_jMenuDistanceOffActionPerformed
+
+    private void jMenuDistanceBoundaryActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuDistanceBoundaryActionPerformed
+        fPars.setDistanceEstimation(1);
+    }//GEN-LAST:event_jMenuDistanceBoundaryActionPerformed
+
+    private void jMenuDistanceColorsActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuDistanceColorsActionPerformed
+        fPars.setDistanceEstimation(2);
+    }//GEN-LAST:event_jMenuDistanceColorsActionPerformed
+
     private void jMenuItemSaveParametersAsActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuItemSaveParametersAsActionPerformed
 
         String msg = "Save Fractal Parameters as File";
@@ -1762,23 +2080,28 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
 
     private void buttonStopInfiniteLoopActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonStopInfiniteLoopActionPerformed
         // user pressed the stop button, so interrupt the infinite loop
-        // we do this by just setting the flag; in the loop the flag is checked
+        // the renderer sets its cancel flag, which is checked in the loop
         System.out.println("stop button pressed");
-        fPars.setInfiniteLoopInterrupted(true);
+        fractalImage.interruptWorker();
     }//GEN-LAST:event_buttonStopInfiniteLoopActionPerformed
 
     private void setDefaultValuesIFSActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_setDefaultValuesIFSActionPerformed
-        fPars.setDefaultParameters(new FractalIFS(this, fPars));
+        fPars.setDefaultParameters(new FractalIFS());
         refreshInputFields();
     }//GEN-LAST:event_setDefaultValuesIFSActionPerformed
 
     private void setDefaultValuesMandelbrotActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_setDefaultValuesMandelbrotActionPerformed
-        fPars.setDefaultParameters(new FractalMandelbrot(this, fPars));
+        if (fractalTypeBuddhabrot.isSelected() || fractalTypeAntiBuddhabrot.isSelected()) {
+            // the Buddhabrot has a wider view window
+            fPars.setDefaultParameters(new FractalBuddhabrot());
+        } else {
+            fPars.setDefaultParameters(new FractalMandelbrot());
+        }
         refreshInputFields();
     }//GEN-LAST:event_setDefaultValuesMandelbrotActionPerformed
 
     private void setDefaultValuesNLFActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_setDefaultValuesNLFActionPerformed
-        fPars.setDefaultParameters(new FractalNLF(this, fPars));
+        fPars.setDefaultParameters(new FractalNLF());
         refreshInputFields();
     }//GEN-LAST:event_setDefaultValuesNLFActionPerformed
 
@@ -1835,23 +2158,29 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
 
             fractalImage = null;
 
-            fPars.setInfiniteLoopInterrupted(false);
-
 
             // find out what fractal type is selected
             switch (fractalType.getSelectedIndex()) {
                 case 0:
-                    // Mandelbrot or Julia, or Manowar
+                    // Mandelbrot or Julia, Manowar, or Buddhabrot
                     if (fractalTypeMandelbrot.isSelected()) {
-                        fractalImage = new FractalMandelbrot(this, fPars);
+                        fractalImage = new FractalImage(this, fPars, new FractalMandelbrot());
                         fPars.setCurrentFractalType(1); // Mandel
                         jMenuItemMandelbrot.setSelected(true);
                     } else if (fractalTypeJulia.isSelected()) {
-                        fractalImage = new FractalJulia(this, fPars);
+                        fractalImage = new FractalImage(this, fPars, new FractalJulia());
                         fPars.setCurrentFractalType(2); // Julia
                         jMenuItemJulia.setSelected(true);
+                    } else if (fractalTypeBuddhabrot.isSelected()) {
+                        fractalImage = new FractalImage(this, fPars, new FractalBuddhabrot(false));
+                        fPars.setCurrentFractalType(7); // Buddhabrot
+                        jMenuItemBuddhabrot.setSelected(true);
+                    } else if (fractalTypeAntiBuddhabrot.isSelected()) {
+                        fractalImage = new FractalImage(this, fPars, new FractalBuddhabrot(true));
+                        fPars.setCurrentFractalType(8); // Anti-Buddhabrot
+                        jMenuItemAntiBuddhabrot.setSelected(true);
                     } else {
-                        fractalImage = new FractalManowar(this, fPars);
+                        fractalImage = new FractalImage(this, fPars, new FractalManowar());
                         fPars.setCurrentFractalType(6); // Manowar
                         jMenuItemManowar.setSelected(true);
                     }
@@ -1861,19 +2190,19 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
                     switch (iterationFunctions.getSelectedIndex()) {
                         case 0:
                             // IFS
-                            fractalImage = new FractalIFS(this, fPars);
+                            fractalImage = new FractalImage(this, fPars, new FractalIFS());
                             fPars.setCurrentFractalType(3);
                             jMenuItemIFS.setSelected(true);
                             break;
                         case 1:
                             // NLF
-                            fractalImage = new FractalNLF(this, fPars);
+                            fractalImage = new FractalImage(this, fPars, new FractalNLF());
                             fPars.setCurrentFractalType(4);
                             jMenuItemNLF.setSelected(true);
                             break;
                         case 2:
                             // Jumper
-                            fractalImage = new FractalJumper(this, fPars);
+                            fractalImage = new FractalImage(this, fPars, new FractalJumper());
                             fPars.setCurrentFractalType(5);
                             jMenuItemJumper.setSelected(true);
                             break;
@@ -1896,6 +2225,8 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
                 // remove the "old" fractal from the container - because a new one will be created
                 fractalFrame.getContentPane().remove(oldFractalImage);
                 fractalFrame.getContentPane().add(fractalImage);
+                // pixels that are still valid (e.g. after a pan) are taken over instead of calculated again
+                fractalImage.setPrevious(oldFractalImage);
                 fractalImage.addMouseListener(this);
                 fractalImage.addMouseMotionListener(this);
 
@@ -2038,10 +2369,8 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
         fPars.setMaxIterations(Integer.parseInt(fractalMaxIter.getText()));
         fPars.setXFix(Double.parseDouble(fractalXFix.getText()));
         fPars.setYFix(Double.parseDouble(fractalYFix.getText()));
-        fPars.setXMin(Double.parseDouble(fractalXMin.getText()));
-        fPars.setXMax(Double.parseDouble(fractalXMax.getText()));
-        fPars.setYMin(Double.parseDouble(fractalYMin.getText()));
-        fPars.setYMax(Double.parseDouble(fractalYMax.getText()));
+        fPars.setPreciseWindow(new BigDecimal(fractalXMin.getText().trim()), new BigDecimal(fractalXMax.getText().trim()),
+                new BigDecimal(fractalYMin.getText().trim()), new BigDecimal(fractalYMax.getText().trim()));
 
         fPars.setXStart(Double.parseDouble(fractalXStart.getText()));
         fPars.setYStart(Double.parseDouble(fractalYStart.getText()));
@@ -2061,13 +2390,13 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
         fractalSizeX.setText(Integer.toString(fPars.getSizeX()));
         fractalSizeY.setText(Integer.toString(fPars.getSizeY()));
 
-        fractalXMin.setText(Double.toString(fPars.getXMin()));
+        fractalXMin.setText(fPars.preciseXMin().toString());
         fractalXMin.moveCaretPosition(0);
-        fractalXMax.setText(Double.toString(fPars.getXMax()));
+        fractalXMax.setText(fPars.preciseXMax().toString());
         fractalXMax.moveCaretPosition(0);
-        fractalYMin.setText(Double.toString(fPars.getYMin()));
+        fractalYMin.setText(fPars.preciseYMin().toString());
         fractalYMin.moveCaretPosition(0);
-        fractalYMax.setText(Double.toString(fPars.getYMax()));
+        fractalYMax.setText(fPars.preciseYMax().toString());
         fractalYMax.moveCaretPosition(0);
         fractalXFix.setText(Double.toString(fPars.getXFix()));
         fractalXFix.moveCaretPosition(0);
@@ -2112,8 +2441,11 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
         });
     }
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.ButtonGroup buttonGroupAntialiasing;
     private javax.swing.ButtonGroup buttonGroupColorSet;
+    private javax.swing.ButtonGroup buttonGroupDistance;
     private javax.swing.ButtonGroup buttonGroupFractalType;
+    private javax.swing.ButtonGroup buttonGroupRenderMode;
     private javax.swing.ButtonGroup buttonGroupViewMenu;
     private javax.swing.JButton buttonStopInfiniteLoop;
     private javax.swing.JCheckBox checkBoxInfiniteLoop;
@@ -2131,6 +2463,8 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
     private javax.swing.JLabel fractalSizeYLabel;
     private javax.swing.JTextField fractalSleep;
     private javax.swing.JTabbedPane fractalType;
+    private javax.swing.JRadioButton fractalTypeAntiBuddhabrot;
+    private javax.swing.JRadioButton fractalTypeBuddhabrot;
     private javax.swing.JRadioButton fractalTypeJulia;
     private javax.swing.JRadioButton fractalTypeMandelbrot;
     private javax.swing.JRadioButton fractalTypeManowar;
@@ -2189,15 +2523,26 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
     private javax.swing.JLabel jLabelAlbumDetails;
     private javax.swing.JLabel jLabelAlbumSummary;
     private javax.swing.JLabel jLabelCalculating;
+    private javax.swing.JRadioButtonMenuItem jMenuAntialiasing2;
+    private javax.swing.JRadioButtonMenuItem jMenuAntialiasing3;
+    private javax.swing.JRadioButtonMenuItem jMenuAntialiasing4;
+    private javax.swing.JRadioButtonMenuItem jMenuAntialiasingOff;
     private javax.swing.JMenuBar jMenuBar;
+    private javax.swing.JRadioButtonMenuItem jMenuColorGradient;
     private javax.swing.JRadioButtonMenuItem jMenuColorSet1;
     private javax.swing.JRadioButtonMenuItem jMenuColorSet2;
     private javax.swing.JRadioButtonMenuItem jMenuColorSet3;
     private javax.swing.JRadioButtonMenuItem jMenuColorSet4;
+    private javax.swing.JRadioButtonMenuItem jMenuDistanceBoundary;
+    private javax.swing.JRadioButtonMenuItem jMenuDistanceColors;
+    private javax.swing.JRadioButtonMenuItem jMenuDistanceOff;
     private javax.swing.JMenu jMenuFile;
     private javax.swing.JMenu jMenuFractalType;
     private javax.swing.JMenu jMenuHelp;
     private javax.swing.JMenuItem jMenuItemAbout;
+    private javax.swing.JRadioButtonMenuItem jMenuItemAntiBuddhabrot;
+    private javax.swing.JRadioButtonMenuItem jMenuItemBuddhabrot;
+    private javax.swing.JMenuItem jMenuItemDefineGradient;
     private javax.swing.JRadioButtonMenuItem jMenuItemIFS;
     private javax.swing.JRadioButtonMenuItem jMenuItemJulia;
     private javax.swing.JRadioButtonMenuItem jMenuItemJumper;
@@ -2212,6 +2557,10 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
     private javax.swing.JMenuItem jMenuItemSetSize17;
     private javax.swing.JMenuItem jMenuItemSetSize86;
     private javax.swing.JMenu jMenuOptions;
+    private javax.swing.JRadioButtonMenuItem jMenuRenderBoundary;
+    private javax.swing.JRadioButtonMenuItem jMenuRenderProgressive;
+    private javax.swing.JRadioButtonMenuItem jMenuRenderSubdivision;
+    private javax.swing.JCheckBoxMenuItem jMenuSolidGuessing;
     private javax.swing.JMenu jMenuView;
     private javax.swing.JPanel jPanelIFS;
     private javax.swing.JPanel jPanelIterationFunctions;
@@ -2227,8 +2576,11 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
     private javax.swing.JScrollPane jScrollPane3;
     private javax.swing.JSeparator jSeparator1;
     private javax.swing.JSeparator jSeparator2;
+    private javax.swing.JSeparator jSeparator3;
+    private javax.swing.JSeparator jSeparator4;
     private javax.swing.JSeparator jSeparator5;
     private javax.swing.JSeparator jSeparator6;
+    private javax.swing.JSeparator jSeparator7;
     private javax.swing.JTable jTable1;
     private javax.swing.JTextPane jTextPane1;
     private javax.swing.JComboBox jumperPresets;
@@ -2337,7 +2689,7 @@ public class YaFGenMainFrame extends javax.swing.JFrame implements ActionListene
             selectedItem = anItem;
 
             // set the default parameters for this new type
-            fPars.setDefaultParameters(new FractalJumper(YaFGenMainFrame.this, fPars));
+            fPars.setDefaultParameters(new FractalJumper());
             // and now set the specific presets
             fPars.setPresetParameters(jumperPresets.getSelectedIndex());
             // and refresh the fields on the screen